@@ -0,0 +1,54 @@
+package ru.practicum.shareit.booking;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import java.util.Collection;
+
+/**
+ * Cluster-wide item locks for multi-node deployments, backed by PostgreSQL transaction-level
+ * advisory locks. Other nodes may have written bookings of the item since this node loaded its
+ * interval tree, so the tree is reloaded once the lock is held.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "shareit.booking.lock-mode", havingValue = "advisory")
+public class AdvisoryItemLockManager implements ItemLockManager {
+    static final int ITEM_LOCK_NAMESPACE = 1;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final BookingIntervalIndex bookingIntervalIndex;
+
+    @Override
+    public void lock(Long itemId) {
+        checkTransaction();
+        lockKey(itemId.hashCode());
+        bookingIntervalIndex.invalidate(itemId);
+    }
+
+    /**
+     * Locks the keys in ascending order; a key is the item id itself unless the id exceeds the int range.
+     */
+    @Override
+    public void lockAll(Collection<Long> itemIds) {
+        checkTransaction();
+        itemIds.stream()
+                .map(itemId -> itemId.hashCode())
+                .distinct()
+                .sorted()
+                .forEach(this::lockKey);
+        itemIds.forEach(bookingIntervalIndex::invalidate);
+    }
+
+    private void lockKey(int key) {
+        jdbcTemplate.queryForList("select pg_advisory_xact_lock(?, ?)", ITEM_LOCK_NAMESPACE, key);
+    }
+
+    private static void checkTransaction() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("Item lock requires an active transaction");
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package ru.practicum.shareit.booking;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Cluster-wide job locks backed by PostgreSQL transaction-level advisory locks.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "shareit.booking.lock-mode", havingValue = "advisory")
+public class AdvisoryJobLockManager implements JobLockManager {
+    static final int JOB_LOCK_NAMESPACE = 2;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public boolean tryLock(String job) {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("Job lock requires an active transaction");
+        }
+
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject("select pg_try_advisory_xact_lock(?, ?)",
+                Boolean.class, JOB_LOCK_NAMESPACE, job.hashCode()));
+    }
+}
@@ -0,0 +1,130 @@
+package ru.practicum.shareit.booking;
+
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.model.ArchivedBooking;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+public interface ArchivedBookingRepository extends JpaRepository<ArchivedBooking, Long> {
+    @Query("""
+    select new ru.practicum.shareit.booking.dto.BookingDto(
+        b.id id,
+        new ru.practicum.shareit.user.UserShort(b.booker.id) booker,
+        new ru.practicum.shareit.item.ItemShort(b.item.id, b.item.name) item,
+        b.start start,
+        b.end end,
+        b.status status)
+    from ArchivedBooking b
+    join b.item
+    where b.booker.id = ?1
+        and (b.start < ?2 or (b.start = ?2 and b.id < ?3))
+    order by b.start desc, b.id desc
+    """)
+    List<BookingDto> findByBookerId(Long userId, LocalDateTime cursorStart, Long cursorId, Limit limit);
+
+    @Query("""
+    select new ru.practicum.shareit.booking.dto.BookingDto(
+        b.id id,
+        new ru.practicum.shareit.user.UserShort(b.booker.id) booker,
+        new ru.practicum.shareit.item.ItemShort(b.item.id, b.item.name) item,
+        b.start start,
+        b.end end,
+        b.status status)
+    from ArchivedBooking b
+    join b.item
+    where b.booker.id = ?1 and b.status = ?2
+        and (b.start < ?3 or (b.start = ?3 and b.id < ?4))
+    order by b.start desc, b.id desc
+    """)
+    List<BookingDto> findByBookerIdAndStatus(Long userId, BookingStatus status,
+                                             LocalDateTime cursorStart, Long cursorId, Limit limit);
+
+    @Query("""
+    select new ru.practicum.shareit.booking.dto.BookingDto(
+        b.id id,
+        new ru.practicum.shareit.user.UserShort(b.booker.id) booker,
+        new ru.practicum.shareit.item.ItemShort(b.item.id, b.item.name) item,
+        b.start start,
+        b.end end,
+        b.status status)
+    from ArchivedBooking b
+    join b.item
+    where b.item.owner.id = ?1
+        and (b.start < ?2 or (b.start = ?2 and b.id < ?3))
+    order by b.start desc, b.id desc
+    """)
+    List<BookingDto> findByOwnerId(Long userId, LocalDateTime cursorStart, Long cursorId, Limit limit);
+
+    @Query("""
+    select new ru.practicum.shareit.booking.dto.BookingDto(
+        b.id id,
+        new ru.practicum.shareit.user.UserShort(b.booker.id) booker,
+        new ru.practicum.shareit.item.ItemShort(b.item.id, b.item.name) item,
+        b.start start,
+        b.end end,
+        b.status status)
+    from ArchivedBooking b
+    join b.item
+    where b.item.owner.id = ?1 and b.status = ?2
+        and (b.start < ?3 or (b.start = ?3 and b.id < ?4))
+    order by b.start desc, b.id desc
+    """)
+    List<BookingDto> findByOwnerIdAndStatus(Long userId, BookingStatus status,
+                                            LocalDateTime cursorStart, Long cursorId, Limit limit);
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = BookingRepository.EXPORT_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")})
+    @Query("""
+    select new ru.practicum.shareit.booking.dto.BookingDto(
+        b.id id,
+        new ru.practicum.shareit.user.UserShort(b.booker.id) booker,
+        new ru.practicum.shareit.item.ItemShort(b.item.id, b.item.name) item,
+        b.start start,
+        b.end end,
+        b.status status)
+    from ArchivedBooking b
+    join b.item
+    where b.booker.id = ?1
+    order by b.start desc, b.id desc
+    """)
+    Stream<BookingDto> streamByBookerId(Long userId);
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = BookingRepository.EXPORT_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")})
+    @Query("""
+    select new ru.practicum.shareit.booking.dto.BookingDto(
+        b.id id,
+        new ru.practicum.shareit.user.UserShort(b.booker.id) booker,
+        new ru.practicum.shareit.item.ItemShort(b.item.id, b.item.name) item,
+        b.start start,
+        b.end end,
+        b.status status)
+    from ArchivedBooking b
+    join b.item
+    where b.item.owner.id = ?1
+    order by b.start desc, b.id desc
+    """)
+    Stream<BookingDto> streamByOwnerId(Long userId);
+
+    boolean existsByBooker_IdAndItem_IdAndStatus(Long bookerId, Long itemId, BookingStatus status);
+
+    @Modifying
+    @Query("""
+    insert into ArchivedBooking (id, start, end, item, booker, status, version)
+    select b.id, b.start, b.end, b.item, b.booker, b.status, b.version
+    from Booking b
+    where b.id in ?1
+    """)
+    int copyFromBookings(Collection<Long> bookingIds);
+}
@@ -0,0 +1,4 @@
+package ru.practicum.shareit.booking;
+
+public record BookerItem(Long bookerId, Long itemId) {
+}
@@ -0,0 +1,95 @@
+package ru.practicum.shareit.booking;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Moves bookings that ended more than {@code shareit.booking.archive.retention} ago from
+ * {@code bookings} to {@code bookings_archive}, so the indexes the hot queries use only cover
+ * recent bookings. Works in chunks of {@code shareit.booking.archive.chunk-size} rows, one short
+ * transaction each, under the job lock like {@link BookingExpiryJob}.
+ */
+@Slf4j
+@Component
+public class BookingArchiveJob {
+    static final String JOB_NAME = "booking-archive";
+
+    private final BookingRepository bookingRepository;
+    private final ArchivedBookingRepository archivedBookingRepository;
+    private final JobLockManager jobLockManager;
+    private final TransactionTemplate transactionTemplate;
+    private final DistributionSummary archivedPerRun;
+    private final Duration retention;
+    private final int chunkSize;
+
+    public BookingArchiveJob(BookingRepository bookingRepository,
+                             ArchivedBookingRepository archivedBookingRepository,
+                             JobLockManager jobLockManager, TransactionTemplate transactionTemplate,
+                             MeterRegistry meterRegistry,
+                             @Value("${shareit.booking.archive.retention:P365D}") Duration retention,
+                             @Value("${shareit.booking.archive.chunk-size:1000}") int chunkSize) {
+        this.bookingRepository = bookingRepository;
+        this.archivedBookingRepository = archivedBookingRepository;
+        this.jobLockManager = jobLockManager;
+        this.transactionTemplate = transactionTemplate;
+        this.archivedPerRun = DistributionSummary.builder("shareit.bookings.archived")
+                .description("Bookings moved to the archive per run")
+                .baseUnit("bookings")
+                .register(meterRegistry);
+        this.retention = retention;
+        this.chunkSize = chunkSize;
+    }
+
+    @Scheduled(fixedDelayString = "${shareit.booking.archive.interval:PT1H}")
+    public void run() {
+        run(LocalDateTime.now());
+    }
+
+    /**
+     * @return number of bookings moved by this run
+     */
+    public int run(LocalDateTime now) {
+        LocalDateTime cutoff = now.minus(retention);
+        int archived = 0;
+        while (true) {
+            Integer moved = transactionTemplate.execute(status -> archiveChunk(cutoff));
+            if (moved == null) {
+                log.debug("Booking archiving is running elsewhere, skipping");
+                break;
+            }
+
+            archived += moved;
+            if (moved < chunkSize) {
+                break;
+            }
+        }
+
+        archivedPerRun.record(archived);
+        if (archived > 0) {
+            log.info("Archived {} bookings that ended before {}", archived, cutoff);
+        }
+        return archived;
+    }
+
+    private Integer archiveChunk(LocalDateTime cutoff) {
+        if (!jobLockManager.tryLock(JOB_NAME)) {
+            return null;
+        }
+
+        List<Long> bookingIds = bookingRepository.findArchivableIds(cutoff, Limit.of(chunkSize));
+        if (!bookingIds.isEmpty()) {
+            archivedBookingRepository.copyFromBookings(bookingIds);
+            bookingRepository.deleteAllByIdInBatch(bookingIds);
+        }
+        return bookingIds.size();
+    }
+}
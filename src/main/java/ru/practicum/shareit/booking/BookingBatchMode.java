@@ -0,0 +1,12 @@
+package ru.practicum.shareit.booking;
+
+public enum BookingBatchMode {
+    /**
+     * Either every entry is created or none is.
+     */
+    ATOMIC,
+    /**
+     * Valid entries are created, invalid ones are reported and skipped.
+     */
+    PARTIAL
+}
@@ -1,21 +1,41 @@
 package ru.practicum.shareit.booking;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.MappingJacksonValue;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
+import ru.practicum.shareit.booking.dto.BookingDecisionRequest;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.CreateBookingRequest;
 import ru.practicum.shareit.exception.ValidationException;
+import ru.practicum.shareit.util.EntityTags;
+import ru.practicum.shareit.util.FieldSet;
+import ru.practicum.shareit.util.KeysetPage;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @RestController
 @RequestMapping(path = "/bookings")
 @RequiredArgsConstructor
 public class BookingController {
+    private static final String DEFAULT_PAGE_SIZE = "20";
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    private static final String NDJSON = "application/x-ndjson";
 
     private final BookingService bookingService;
+    private final ObjectMapper objectMapper;
 
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
@@ -24,54 +44,146 @@ public class BookingController {
         return bookingService.createBooking(request, userId);
     }
 
+    @PostMapping("/batch")
+    public ResponseEntity<BookingBatchResultDto> createBookings(
+            @RequestBody List<CreateBookingRequest> requests,
+            @RequestParam(name = "mode", defaultValue = "atomic") String mode,
+            @RequestHeader(name = "X-Sharer-User-Id") Long userId) {
+        BookingBatchResultDto result = bookingService.createBookings(requests, userId, parseMode(mode));
+        return ResponseEntity.status(result.isApplied() ? HttpStatus.CREATED : HttpStatus.BAD_REQUEST)
+                .body(result);
+    }
+
     @PatchMapping("/{booking-id}")
     @ResponseStatus(HttpStatus.OK)
     public BookingDto approveBooking(@PathVariable("booking-id") Long bookingId,
                                      @RequestParam(name = "approved") Boolean approved,
-                                     @RequestHeader(name = "X-Sharer-User-Id") Long userId) {
-        return bookingService.approveBooking(bookingId, userId, approved);
+                                     @RequestHeader(name = "X-Sharer-User-Id") Long userId,
+                                     @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return bookingService.approveBooking(bookingId, userId, approved, EntityTags.parseVersion(ifMatch));
     }
 
-    @GetMapping("/{booking-id}")
+    @PatchMapping("/batch")
     @ResponseStatus(HttpStatus.OK)
+    public List<BookingDto> approveBookings(@RequestBody List<BookingDecisionRequest> decisions,
+                                            @RequestHeader(name = "X-Sharer-User-Id") Long userId) {
+        return bookingService.approveBookings(decisions, userId);
+    }
+
+    @GetMapping("/{booking-id}")
     public BookingDto getBooking(@PathVariable("booking-id") Long bookingId,
-                                 @RequestHeader(name = "X-Sharer-User-Id") Long userId) {
+                                 @RequestHeader(name = "X-Sharer-User-Id") Long userId,
+                                 WebRequest webRequest) {
+        if (webRequest.checkNotModified(bookingService.getBookingETag(bookingId, userId))) {
+            return null;
+        }
         return bookingService.getBookingById(bookingId, userId);
     }
 
-    @GetMapping
+    @GetMapping(params = "ids")
     @ResponseStatus(HttpStatus.OK)
-    public List<BookingDto> getBookingsByCurrentUser(@RequestParam(required = false, name = "state") String bookingState,
-                                                     @RequestHeader(name = "X-Sharer-User-Id") Long userId) {
-        if (bookingState != null && !bookingState.isBlank()) {
-            try {
-                BookingState state = BookingState.valueOf(bookingState.toUpperCase());
-                return bookingService.getBookingsByUserAndState(userId, state);
-            } catch (IllegalArgumentException e) {
-                throw new ValidationException(
-                        String.format("Передан некорректный параметр state. Допустимые значения:%s",
-                                Arrays.toString(BookingState.values()).toLowerCase()));
-            }
-        }
+    public List<BookingDto> getBookingsByIds(@RequestParam("ids") Set<Long> bookingIds,
+                                             @RequestHeader(name = "X-Sharer-User-Id") Long userId) {
+        return bookingService.getBookingsByIds(bookingIds, userId);
+    }
 
-        return bookingService.getBookingsByUserAndState(userId, BookingState.ALL);
+    @GetMapping
+    public ResponseEntity<MappingJacksonValue> getBookingsByCurrentUser(
+            @RequestParam(required = false, name = "state") String bookingState,
+            @RequestParam(required = false, name = "cursor") String cursor,
+            @RequestParam(name = "size", defaultValue = DEFAULT_PAGE_SIZE) Integer size,
+            @RequestParam(name = "history", defaultValue = "false") boolean history,
+            @RequestParam(required = false, name = "fields") String fields,
+            @RequestHeader(name = "X-Sharer-User-Id") Long userId) {
+        BookingState state = parseState(bookingState);
+        FieldSet fieldSet = FieldSet.parse(fields, BookingDto.class);
+        return toResponse(history
+                ? bookingService.getBookingHistoryByUserAndState(userId, state, cursor, size)
+                : bookingService.getBookingsByUserAndState(userId, state, cursor, size, fieldSet), fieldSet);
     }
 
     @GetMapping("/owner")
-    @ResponseStatus(HttpStatus.OK)
-    public List<BookingDto> getBookingsByOwner(@RequestParam(required = false, name = "state") String bookingState,
-                                               @RequestHeader(name = "X-Sharer-User-Id") Long userId) {
-        if (bookingState != null && !bookingState.isBlank()) {
+    public ResponseEntity<MappingJacksonValue> getBookingsByOwner(
+            @RequestParam(required = false, name = "state") String bookingState,
+            @RequestParam(required = false, name = "cursor") String cursor,
+            @RequestParam(name = "size", defaultValue = DEFAULT_PAGE_SIZE) Integer size,
+            @RequestParam(name = "history", defaultValue = "false") boolean history,
+            @RequestParam(required = false, name = "fields") String fields,
+            @RequestHeader(name = "X-Sharer-User-Id") Long userId) {
+        BookingState state = parseState(bookingState);
+        FieldSet fieldSet = FieldSet.parse(fields, BookingDto.class);
+        return toResponse(history
+                ? bookingService.getBookingHistoryByOwnerAndState(userId, state, cursor, size)
+                : bookingService.getBookingsByOwnerAndState(userId, state, cursor, size), fieldSet);
+    }
+
+    @GetMapping(value = "/export", produces = NDJSON)
+    public StreamingResponseBody exportBookingsByCurrentUser(@RequestHeader(name = "X-Sharer-User-Id") Long userId) {
+        return toNdjson(bookingService.exportBookingsByBooker(userId));
+    }
+
+    @GetMapping(value = "/owner/export", produces = NDJSON)
+    public StreamingResponseBody exportBookingsByOwner(@RequestHeader(name = "X-Sharer-User-Id") Long userId) {
+        return toNdjson(bookingService.exportBookingsByOwner(userId));
+    }
+
+    private BookingState parseState(String bookingState) {
+        if (bookingState == null || bookingState.isBlank()) {
+            return BookingState.ALL;
+        }
+
+        try {
+            return BookingState.valueOf(bookingState.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new ValidationException(
+                    String.format("Передан некорректный параметр state. Допустимые значения:%s",
+                            Arrays.toString(BookingState.values()).toLowerCase()));
+        }
+    }
+
+    private BookingBatchMode parseMode(String mode) {
+        try {
+            return BookingBatchMode.valueOf(mode.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new ValidationException(
+                    String.format("Передан некорректный параметр mode. Допустимые значения:%s",
+                            Arrays.toString(BookingBatchMode.values()).toLowerCase()));
+        }
+    }
+
+    /**
+     * Writes one JSON object per line. The first row is flushed right away, later ones whenever
+     * a fetch-size worth of rows has been written.
+     */
+    private StreamingResponseBody toNdjson(BookingExport export) {
+        ObjectWriter writer = objectMapper.writerFor(BookingDto.class);
+        int flushEvery = Integer.parseInt(BookingRepository.EXPORT_FETCH_SIZE);
+        return out -> {
+            AtomicInteger written = new AtomicInteger();
             try {
-                BookingState state = BookingState.valueOf(bookingState.toUpperCase());
-                return bookingService.getBookingsByOwnerAndState(userId, state);
-            } catch (IllegalArgumentException e) {
-                throw new ValidationException(
-                        String.format("Передан некорректный параметр state. Допустимые значения:%s",
-                                Arrays.toString(BookingState.values()).toLowerCase()));
+                export.forEach(booking -> {
+                    try {
+                        out.write(writer.writeValueAsBytes(booking));
+                        out.write('\n');
+                        if (written.getAndIncrement() % flushEvery == 0) {
+                            out.flush();
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
             }
-        }
+            out.flush();
+        };
+    }
 
-        return bookingService.getBookingsByOwnerAndState(userId, BookingState.ALL);
+    private ResponseEntity<MappingJacksonValue> toResponse(KeysetPage<BookingDto> page, FieldSet fields) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.nextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.nextCursor());
+        }
+        return response.body(fields.filter(page.rows()));
     }
 }
@@ -0,0 +1,115 @@
+package ru.practicum.shareit.booking;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Cancels WAITING bookings whose start has passed without a decision from the owner.
+ *
+ * <p>Stale bookings are walked in id order in chunks of {@code shareit.booking.expiry.chunk-size},
+ * each chunk in its own short transaction. A chunk first takes the job lock, so when several nodes
+ * run the job only one of them works at a time; the others skip the run.
+ */
+@Slf4j
+@Component
+public class BookingExpiryJob {
+    static final String JOB_NAME = "booking-expiry";
+
+    private final BookingRepository bookingRepository;
+    private final BookingIntervalIndex bookingIntervalIndex;
+    private final ItemLockManager itemLockManager;
+    private final JobLockManager jobLockManager;
+    private final TransactionTemplate transactionTemplate;
+    private final DistributionSummary expiredPerRun;
+    private final int chunkSize;
+
+    public BookingExpiryJob(BookingRepository bookingRepository, BookingIntervalIndex bookingIntervalIndex,
+                            ItemLockManager itemLockManager, JobLockManager jobLockManager,
+                            TransactionTemplate transactionTemplate, MeterRegistry meterRegistry,
+                            @Value("${shareit.booking.expiry.chunk-size:500}") int chunkSize) {
+        this.bookingRepository = bookingRepository;
+        this.bookingIntervalIndex = bookingIntervalIndex;
+        this.itemLockManager = itemLockManager;
+        this.jobLockManager = jobLockManager;
+        this.transactionTemplate = transactionTemplate;
+        this.expiredPerRun = DistributionSummary.builder("shareit.bookings.expired")
+                .description("WAITING bookings cancelled per expiry run")
+                .baseUnit("bookings")
+                .register(meterRegistry);
+        this.chunkSize = chunkSize;
+    }
+
+    @Scheduled(fixedDelayString = "${shareit.booking.expiry.interval:PT5M}")
+    public void run() {
+        run(LocalDateTime.now());
+    }
+
+    /**
+     * @return number of bookings cancelled by this run
+     */
+    public int run(LocalDateTime now) {
+        int expired = 0;
+        long afterId = 0;
+        while (true) {
+            long from = afterId;
+            Chunk chunk = transactionTemplate.execute(status -> expireChunk(now, from));
+            if (chunk == null) {
+                log.debug("Booking expiry is running elsewhere, skipping");
+                break;
+            }
+
+            expired += chunk.expired();
+            if (chunk.lastId() == null) {
+                break;
+            }
+            afterId = chunk.lastId();
+        }
+
+        expiredPerRun.record(expired);
+        if (expired > 0) {
+            log.info("Cancelled {} WAITING bookings that started before {}", expired, now);
+        }
+        return expired;
+    }
+
+    private Chunk expireChunk(LocalDateTime now, long afterId) {
+        if (!jobLockManager.tryLock(JOB_NAME)) {
+            return null;
+        }
+
+        List<ItemBookingInterval> stale = bookingRepository.findStaleWaiting(now, afterId, Limit.of(chunkSize));
+        if (stale.isEmpty()) {
+            return new Chunk(0, null);
+        }
+
+        // owners may be deciding on these bookings right now; re-read them under the item locks,
+        // taken in the same global order as the batch writes so the job cannot deadlock with them
+        itemLockManager.lockAll(stale.stream()
+                .map(ItemBookingInterval::itemId)
+                .collect(Collectors.toSet()));
+        List<ItemBookingInterval> waiting = bookingRepository.findWaitingByIdIn(
+                stale.stream().map(ItemBookingInterval::bookingId).toList());
+        if (!waiting.isEmpty()) {
+            bookingRepository.cancelWaiting(waiting.stream().map(ItemBookingInterval::bookingId).toList());
+            waiting.stream()
+                    .map(ItemBookingInterval::itemId)
+                    .distinct()
+                    .forEach(bookingIntervalIndex::invalidateAfterCompletion);
+        }
+
+        Long lastId = stale.size() < chunkSize ? null : stale.getLast().bookingId();
+        return new Chunk(waiting.size(), lastId);
+    }
+
+    private record Chunk(int expired, Long lastId) {
+    }
+}
@@ -0,0 +1,15 @@
+package ru.practicum.shareit.booking;
+
+import ru.practicum.shareit.booking.dto.BookingDto;
+import java.util.function.Consumer;
+
+/**
+ * A booking history to be read later, typically outside the request thread. Rows are fetched
+ * from a database cursor while the consumer handles them, so memory use does not depend on
+ * the size of the history.
+ */
+@FunctionalInterface
+public interface BookingExport {
+
+    void forEach(Consumer<BookingDto> consumer);
+}
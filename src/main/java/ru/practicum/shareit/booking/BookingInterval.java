@@ -0,0 +1,17 @@
+package ru.practicum.shareit.booking;
+
+import java.time.LocalDateTime;
+
+/**
+ * Half-open period {@code [start, end)} occupied by a booking.
+ */
+public record BookingInterval(Long bookingId, LocalDateTime start, LocalDateTime end, BookingStatus status) {
+
+    public boolean overlaps(LocalDateTime otherStart, LocalDateTime otherEnd) {
+        return start.isBefore(otherEnd) && end.isAfter(otherStart);
+    }
+
+    public BookingInterval withStatus(BookingStatus newStatus) {
+        return new BookingInterval(bookingId, start, end, newStatus);
+    }
+}
@@ -0,0 +1,180 @@
+package ru.practicum.shareit.booking;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * In-memory per-item index of WAITING and APPROVED bookings used for conflict detection.
+ *
+ * <p>An item's tree is loaded from the database on first use and then kept in sync by the
+ * booking writes. Changes are applied as soon as they are made; if the surrounding transaction
+ * does not commit, the item's tree is dropped and reloaded on next use. Trees of items not used
+ * for a while, and the least used ones beyond the size limit, are dropped as well.
+ */
+@Component
+public class BookingIntervalIndex {
+    public static final Set<BookingStatus> ACTIVE_STATUSES = EnumSet.of(BookingStatus.WAITING, BookingStatus.APPROVED);
+    static final String CACHE_NAME = "bookingIntervals";
+
+    private final BookingRepository bookingRepository;
+    private final Cache<Long, IntervalTree> trees;
+
+    public BookingIntervalIndex(BookingRepository bookingRepository,
+                                @Value("${shareit.booking.interval-index.size:10000}") long maximumSize,
+                                @Value("${shareit.booking.interval-index.ttl:PT30M}") Duration ttl,
+                                MeterRegistry meterRegistry) {
+        this.bookingRepository = bookingRepository;
+        trees = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterAccess(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, trees, CACHE_NAME);
+    }
+
+    /**
+     * Finds an active booking of the item that overlaps {@code [start, end)}.
+     */
+    public Optional<BookingInterval> findConflict(Long itemId, LocalDateTime start, LocalDateTime end) {
+        IntervalTree tree = tree(itemId);
+        synchronized (tree) {
+            return tree.findFirstOverlapping(start, end, interval -> true);
+        }
+    }
+
+    /**
+     * Returns those of the given items that have an active booking overlapping {@code [start, end)}.
+     * Items whose trees are not loaded yet are {@link #preload preloaded}.
+     */
+    public Set<Long> findBusyItems(Collection<Long> itemIds, LocalDateTime start, LocalDateTime end) {
+        preload(itemIds);
+        Set<Long> busy = new HashSet<>();
+        for (Long itemId : itemIds) {
+            IntervalTree tree = tree(itemId);
+            synchronized (tree) {
+                if (tree.findFirstOverlapping(start, end, interval -> true).isPresent()) {
+                    busy.add(itemId);
+                }
+            }
+        }
+        return busy;
+    }
+
+    /**
+     * Finds another APPROVED booking of the item that overlaps the given booking.
+     */
+    public Optional<BookingInterval> findApprovedConflict(Long itemId, BookingInterval booking) {
+        IntervalTree tree = tree(itemId);
+        synchronized (tree) {
+            return tree.findFirstOverlapping(booking.start(), booking.end(),
+                    interval -> interval.status() == BookingStatus.APPROVED
+                            && !interval.bookingId().equals(booking.bookingId()));
+        }
+    }
+
+    /**
+     * Returns active bookings of the item that overlap {@code [start, end)}, ordered by start.
+     */
+    public List<BookingInterval> findOverlapping(Long itemId, LocalDateTime start, LocalDateTime end) {
+        IntervalTree tree = tree(itemId);
+        synchronized (tree) {
+            return tree.findOverlapping(start, end);
+        }
+    }
+
+    /**
+     * Records the current state of a booking: active bookings are added or updated, others removed.
+     */
+    public void put(Long itemId, BookingInterval booking) {
+        IntervalTree tree = tree(itemId);
+        synchronized (tree) {
+            tree.removeEndedBefore(LocalDateTime.now());
+            if (ACTIVE_STATUSES.contains(booking.status())) {
+                tree.insert(booking);
+            } else {
+                tree.remove(booking);
+            }
+        }
+    }
+
+    public void invalidate(Long itemId) {
+        trees.invalidate(itemId);
+    }
+
+    /**
+     * Drops the item's tree once the current transaction completes. For bookings changed by bulk
+     * statements, whose stored dates may be less precise than the ones the tree was built from, and
+     * for bookings removed by cascading deletes.
+     */
+    public void invalidateAfterCompletion(Long itemId) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                invalidate(itemId);
+            }
+        });
+    }
+
+    /**
+     * Loads the trees of those of the given items that are not loaded yet with a single query.
+     */
+    public void preload(Collection<Long> itemIds) {
+        List<Long> missing = itemIds.stream()
+                .filter(itemId -> trees.getIfPresent(itemId) == null)
+                .toList();
+        if (missing.isEmpty()) {
+            return;
+        }
+
+        Map<Long, IntervalTree> loaded = new HashMap<>();
+        missing.forEach(itemId -> loaded.put(itemId, new IntervalTree()));
+        bookingRepository.findIntervalsByItemIdIn(missing, ACTIVE_STATUSES, LocalDateTime.now())
+                .forEach(row -> loaded.get(row.itemId()).insert(row.toInterval()));
+        loaded.forEach(trees.asMap()::putIfAbsent);
+    }
+
+    private IntervalTree tree(Long itemId) {
+        IntervalTree tree = trees.get(itemId, this::load);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public int getOrder() {
+                    // drop rolled back changes before the item lock is released to the next writer
+                    return Ordered.HIGHEST_PRECEDENCE;
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        invalidate(itemId);
+                    }
+                }
+            });
+        }
+        return tree;
+    }
+
+    private IntervalTree load(Long itemId) {
+        IntervalTree tree = new IntervalTree();
+        bookingRepository.findIntervalsByItemId(itemId, ACTIVE_STATUSES, LocalDateTime.now())
+                .forEach(tree::insert);
+        return tree;
+    }
+}
@@ -32,4 +32,8 @@ public final class BookingMapper {
         booking.setBooker(user);
         return booking;
     }
+
+    public static BookingInterval mapToInterval(Booking booking) {
+        return new BookingInterval(booking.getId(), booking.getStart(), booking.getEnd(), booking.getStatus());
+    }
 }
@@ -0,0 +1,20 @@
+package ru.practicum.shareit.booking;
+
+import java.time.LocalDateTime;
+
+/**
+ * Position of a booking relative to the current time. Persisted with the booking and moved
+ * forward by {@link BookingPhaseSweeper}, so listings by state are plain equality lookups.
+ */
+public enum BookingPhase {
+    FUTURE,
+    CURRENT,
+    PAST;
+
+    public static BookingPhase of(LocalDateTime start, LocalDateTime end, LocalDateTime now) {
+        if (start.isAfter(now)) {
+            return FUTURE;
+        }
+        return end.isBefore(now) ? PAST : CURRENT;
+    }
+}
@@ -0,0 +1,44 @@
+package ru.practicum.shareit.booking;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import java.time.LocalDateTime;
+
+/**
+ * Periodically advances {@link BookingPhase} of bookings whose start or end has passed.
+ *
+ * <p>Each sweep only reads the bookings due for a change: FUTURE ones ordered by start and CURRENT
+ * ones ordered by end, both served by indexes on the phase that act as the queue of upcoming instants.
+ * Sweeps are idempotent, so several instances may run them concurrently, and a phase overwritten
+ * by a concurrent booking update is corrected by the next sweep.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BookingPhaseSweeper {
+    private final BookingRepository bookingRepository;
+    private final CompletedBookingCache completedBookingCache;
+
+    @Scheduled(fixedDelayString = "${shareit.booking.phase-sweep-interval:PT30S}")
+    @Transactional
+    public void sweep() {
+        sweep(LocalDateTime.now());
+    }
+
+    /**
+     * @return number of bookings whose phase changed
+     */
+    @Transactional
+    public int sweep(LocalDateTime now) {
+        completedBookingCache.bookingsEnded(bookingRepository.findEndingApproved(now));
+        int started = bookingRepository.startBookings(now);
+        int ended = bookingRepository.endBookings(now);
+        if (started + ended > 0) {
+            log.debug("Booking phases advanced: {} started, {} ended", started, ended);
+        }
+        return started + ended;
+    }
+}
@@ -1,13 +1,23 @@
 package ru.practicum.shareit.booking;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.model.Booking;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface BookingRepository extends JpaRepository<Booking, Long> {
+    String EXPORT_FETCH_SIZE = "500";
+
     @Query("""
     select new ru.practicum.shareit.booking.dto.BookingDto(
         b.id id,
@@ -20,9 +30,10 @@ public interface BookingRepository extends JpaRepository<Booking, Long> {
     join b.booker
     join b.item
     where b.booker.id = ?1
-    order by b.start desc
+        and (b.start < ?2 or (b.start = ?2 and b.id < ?3))
+    order by b.start desc, b.id desc
     """)
-    List<BookingDto> findByBookerId(Long userId);
+    List<BookingDto> findByBookerId(Long userId, LocalDateTime cursorStart, Long cursorId, Limit limit);
 
     @Query("""
     select new ru.practicum.shareit.booking.dto.BookingDto(
@@ -36,9 +47,11 @@ public interface BookingRepository extends JpaRepository<Booking, Long> {
     join b.booker
     join b.item
     where b.booker.id = ?1 and b.status = ?2
-    order by b.start desc
+        and (b.start < ?3 or (b.start = ?3 and b.id < ?4))
+    order by b.start desc, b.id desc
     """)
-    List<BookingDto> findByBookerIdAndStatusId(Long userId, BookingStatus status);
+    List<BookingDto> findByBookerIdAndStatusId(Long userId, BookingStatus status,
+                                               LocalDateTime cursorStart, Long cursorId, Limit limit);
 
     @Query("""
     select new ru.practicum.shareit.booking.dto.BookingDto(
@@ -52,9 +65,10 @@ public interface BookingRepository extends JpaRepository<Booking, Long> {
     join b.booker
     join b.item
     where b.item.owner.id = ?1
-    order by b.start desc
+        and (b.start < ?2 or (b.start = ?2 and b.id < ?3))
+    order by b.start desc, b.id desc
     """)
-    List<BookingDto> findByOwnerId(Long userId);
+    List<BookingDto> findByOwnerId(Long userId, LocalDateTime cursorStart, Long cursorId, Limit limit);
 
     @Query("""
     select new ru.practicum.shareit.booking.dto.BookingDto(
@@ -68,9 +82,11 @@ public interface BookingRepository extends JpaRepository<Booking, Long> {
     join b.booker
     join b.item
     where b.item.owner.id = ?1 and b.status = ?2
-    order by b.start desc
+        and (b.start < ?3 or (b.start = ?3 and b.id < ?4))
+    order by b.start desc, b.id desc
     """)
-    List<BookingDto> findByOwnerIdAndStatusId(Long userId, BookingStatus status);
+    List<BookingDto> findByOwnerIdAndStatusId(Long userId, BookingStatus status,
+                                              LocalDateTime cursorStart, Long cursorId, Limit limit);
 
     @Query("""
     select new ru.practicum.shareit.booking.dto.BookingDto(
@@ -83,11 +99,12 @@ public interface BookingRepository extends JpaRepository<Booking, Long> {
     from Booking b
     join b.booker
     join b.item
-    where b.booker.id = ?1
-        and (CURRENT TIMESTAMP between b.start and b.end)
-    order by b.id asc
+    where b.booker.id = ?1 and b.phase = ?2
+        and (b.start < ?3 or (b.start = ?3 and b.id < ?4))
+    order by b.start desc, b.id desc
     """)
-    List<BookingDto> getCurrentBookingsByBookerId(Long userId);
+    List<BookingDto> findByBookerIdAndPhase(Long userId, BookingPhase phase,
+                                            LocalDateTime cursorStart, Long cursorId, Limit limit);
 
     @Query("""
     select new ru.practicum.shareit.booking.dto.BookingDto(
@@ -100,63 +117,202 @@ public interface BookingRepository extends JpaRepository<Booking, Long> {
     from Booking b
     join b.booker
     join b.item
-    where b.booker.id = ?1
-        and b.end < CURRENT_TIMESTAMP
-    order by b.id asc
+    where b.item.owner.id = ?1 and b.phase = ?2
+        and (b.start < ?3 or (b.start = ?3 and b.id < ?4))
+    order by b.start desc, b.id desc
     """)
-    List<BookingDto> getPastBookingsByBookerId(Long userId);
+    List<BookingDto> findByOwnerIdAndPhase(Long userId, BookingPhase phase,
+                                           LocalDateTime cursorStart, Long cursorId, Limit limit);
 
+    /**
+     * Same as {@link #findByBookerId(Long, LocalDateTime, Long, Limit)} without the item, which
+     * saves the join to items when the caller did not ask for it.
+     */
     @Query("""
     select new ru.practicum.shareit.booking.dto.BookingDto(
         b.id id,
         new ru.practicum.shareit.user.UserShort(b.booker.id) booker,
-        new ru.practicum.shareit.item.ItemShort(b.item.id, b.item.name) item,
         b.start start,
         b.end end,
         b.status status)
     from Booking b
-    join b.booker
-    join b.item
     where b.booker.id = ?1
-        and b.start > CURRENT_TIMESTAMP
-    order by b.id asc
+        and (b.start < ?2 or (b.start = ?2 and b.id < ?3))
+    order by b.start desc, b.id desc
     """)
-    List<BookingDto> getFutureBookingsByBookerId(Long userId);
+    List<BookingDto> findWithoutItemByBookerId(Long userId, LocalDateTime cursorStart, Long cursorId, Limit limit);
 
     @Query("""
     select new ru.practicum.shareit.booking.dto.BookingDto(
         b.id id,
         new ru.practicum.shareit.user.UserShort(b.booker.id) booker,
-        new ru.practicum.shareit.item.ItemShort(b.item.id, b.item.name) item,
         b.start start,
         b.end end,
         b.status status)
     from Booking b
-    join b.booker
-    join b.item
-    where b.item.owner.id = ?1
-        and (CURRENT_TIMESTAMP between b.start and b.end)
-    order by b.id asc
+    where b.booker.id = ?1 and b.status = ?2
+        and (b.start < ?3 or (b.start = ?3 and b.id < ?4))
+    order by b.start desc, b.id desc
     """)
-    List<BookingDto> getCurrentBookingsByOwnerId(Long userId);
+    List<BookingDto> findWithoutItemByBookerIdAndStatusId(Long userId, BookingStatus status,
+                                                          LocalDateTime cursorStart, Long cursorId, Limit limit);
 
     @Query("""
     select new ru.practicum.shareit.booking.dto.BookingDto(
         b.id id,
         new ru.practicum.shareit.user.UserShort(b.booker.id) booker,
-        new ru.practicum.shareit.item.ItemShort(b.item.id, b.item.name) item,
         b.start start,
         b.end end,
         b.status status)
     from Booking b
-    join b.booker
-    join b.item
-    where b.item.owner.id = ?1
-        and b.end < CURRENT_TIMESTAMP
-    order by b.id asc
+    where b.booker.id = ?1 and b.phase = ?2
+        and (b.start < ?3 or (b.start = ?3 and b.id < ?4))
+    order by b.start desc, b.id desc
+    """)
+    List<BookingDto> findWithoutItemByBookerIdAndPhase(Long userId, BookingPhase phase,
+                                                       LocalDateTime cursorStart, Long cursorId, Limit limit);
+
+    /**
+     * End of the latest APPROVED booking of the item that has ended by {@code now}.
+     */
+    @Query("""
+    select max(b.end)
+    from Booking b
+    where b.item.id = ?1 and b.status = ru.practicum.shareit.booking.BookingStatus.APPROVED and b.end <= ?2
+    """)
+    LocalDateTime getLastEndDateByItemId(Long itemId, LocalDateTime now);
+
+    /**
+     * Start of the earliest APPROVED booking of the item that starts after {@code now}.
+     */
+    @Query("""
+    select min(b.start)
+    from Booking b
+    where b.item.id = ?1 and b.status = ru.practicum.shareit.booking.BookingStatus.APPROVED and b.start > ?2
+    """)
+    LocalDateTime getNextStartDateByItemId(Long itemId, LocalDateTime now);
+
+    @Query("""
+    select new ru.practicum.shareit.booking.ItemBookingDate(b.item.id, max(b.end))
+    from Booking b
+    where b.item.id in ?1 and b.status = ru.practicum.shareit.booking.BookingStatus.APPROVED and b.end <= ?2
+    group by b.item.id
     """)
-    List<BookingDto> getPastBookingsByOwnerId(Long userId);
+    List<ItemBookingDate> getLastEndDatesByItemIds(Collection<Long> itemIds, LocalDateTime now);
 
+    @Query("""
+    select new ru.practicum.shareit.booking.ItemBookingDate(b.item.id, min(b.start))
+    from Booking b
+    where b.item.id in ?1 and b.status = ru.practicum.shareit.booking.BookingStatus.APPROVED and b.start > ?2
+    group by b.item.id
+    """)
+    List<ItemBookingDate> getNextStartDatesByItemIds(Collection<Long> itemIds, LocalDateTime now);
+
+    @Query("""
+    select new ru.practicum.shareit.booking.BookingInterval(b.id, b.start, b.end, b.status)
+    from Booking b
+    where b.item.id = ?1 and b.status in ?2 and b.end > ?3
+    """)
+    List<BookingInterval> findIntervalsByItemId(Long itemId, Collection<BookingStatus> statuses, LocalDateTime after);
+
+    @Query("""
+    select new ru.practicum.shareit.booking.ItemBookingInterval(b.item.id, b.id, b.start, b.end, b.status)
+    from Booking b
+    where b.item.id in ?1 and b.status in ?2 and b.end > ?3
+    """)
+    List<ItemBookingInterval> findIntervalsByItemIdIn(Collection<Long> itemIds, Collection<BookingStatus> statuses,
+                                                      LocalDateTime after);
+
+    @Query("""
+    select new ru.practicum.shareit.booking.BookingVersion(b.version, i.version, b.booker.id, i.owner.id)
+    from Booking b
+    join b.item i
+    where b.id = ?1
+    """)
+    Optional<BookingVersion> findVersionById(Long bookingId);
+
+    @Query("select b.item.id from Booking b where b.id = ?1")
+    Optional<Long> findItemIdById(Long bookingId);
+
+    @Query("select distinct b.item.id from Booking b where b.booker.id = ?1 and b.status in ?2")
+    List<Long> findItemIdsByBookerIdAndStatusIn(Long bookerId, Collection<BookingStatus> statuses);
+
+    @Query("""
+    select b
+    from Booking b
+    join fetch b.item
+    where b.id in ?1
+    """)
+    List<Booking> findWithItemByIdIn(Collection<Long> bookingIds);
+
+    /**
+     * Moves FUTURE bookings that have started by {@code now} to CURRENT, or straight to PAST if they
+     * have already ended.
+     */
+    @Modifying
+    @Query("""
+    update Booking b
+    set b.phase = case when b.end < ?1
+        then ru.practicum.shareit.booking.BookingPhase.PAST
+        else ru.practicum.shareit.booking.BookingPhase.CURRENT end
+    where b.phase = ru.practicum.shareit.booking.BookingPhase.FUTURE and b.start <= ?1
+    """)
+    int startBookings(LocalDateTime now);
+
+    /**
+     * Bookers and items of the APPROVED bookings the next {@link #startBookings} and
+     * {@link #endBookings} calls will move to PAST, including FUTURE ones that have already ended.
+     */
+    @Query("""
+    select distinct new ru.practicum.shareit.booking.BookerItem(b.booker.id, b.item.id)
+    from Booking b
+    where b.phase in (ru.practicum.shareit.booking.BookingPhase.FUTURE, ru.practicum.shareit.booking.BookingPhase.CURRENT)
+        and b.end < ?1
+        and b.status = ru.practicum.shareit.booking.BookingStatus.APPROVED
+    """)
+    List<BookerItem> findEndingApproved(LocalDateTime now);
+
+    boolean existsByBooker_IdAndItem_IdAndStatusAndEndBefore(Long bookerId, Long itemId, BookingStatus status,
+                                                             LocalDateTime before);
+
+    @Modifying
+    @Query("""
+    update Booking b
+    set b.phase = ru.practicum.shareit.booking.BookingPhase.PAST
+    where b.phase = ru.practicum.shareit.booking.BookingPhase.CURRENT and b.end < ?1
+    """)
+    int endBookings(LocalDateTime now);
+
+    @Query("""
+    select new ru.practicum.shareit.booking.ItemBookingInterval(b.item.id, b.id, b.start, b.end, b.status)
+    from Booking b
+    where b.status = ru.practicum.shareit.booking.BookingStatus.WAITING and b.start < ?1 and b.id > ?2
+    order by b.id
+    """)
+    List<ItemBookingInterval> findStaleWaiting(LocalDateTime now, Long afterId, Limit limit);
+
+    @Query("""
+    select new ru.practicum.shareit.booking.ItemBookingInterval(b.item.id, b.id, b.start, b.end, b.status)
+    from Booking b
+    where b.id in ?1 and b.status = ru.practicum.shareit.booking.BookingStatus.WAITING
+    """)
+    List<ItemBookingInterval> findWaitingByIdIn(Collection<Long> bookingIds);
+
+    /**
+     * Cancels those of the bookings that are still WAITING. Bumps the version, so cached
+     * representations and pending conditional updates see the change.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("""
+    update Booking b
+    set b.status = ru.practicum.shareit.booking.BookingStatus.CANCELLED, b.version = b.version + 1
+    where b.id in ?1 and b.status = ru.practicum.shareit.booking.BookingStatus.WAITING
+    """)
+    int cancelWaiting(Collection<Long> bookingIds);
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")})
     @Query("""
     select new ru.practicum.shareit.booking.dto.BookingDto(
         b.id id,
@@ -168,27 +324,39 @@ public interface BookingRepository extends JpaRepository<Booking, Long> {
     from Booking b
     join b.booker
     join b.item
-    where b.item.owner.id = ?1
-        and b.start > CURRENT_TIMESTAMP
-    order by b.id asc
+    where b.booker.id = ?1
+    order by b.start desc, b.id desc
     """)
-    List<BookingDto> getFutureBookingsByOwnerId(Long userId);
+    Stream<BookingDto> streamByBookerId(Long userId);
 
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")})
     @Query("""
-    select b.end
+    select new ru.practicum.shareit.booking.dto.BookingDto(
+        b.id id,
+        new ru.practicum.shareit.user.UserShort(b.booker.id) booker,
+        new ru.practicum.shareit.item.ItemShort(b.item.id, b.item.name) item,
+        b.start start,
+        b.end end,
+        b.status status)
     from Booking b
-    where b.item.id = ?1 and b.end < CURRENT_TIMESTAMP
-    order by b.id desc
-    limit 1
+    join b.booker
+    join b.item
+    where b.item.owner.id = ?1
+    order by b.start desc, b.id desc
     """)
-    LocalDateTime getLastEndDateByItemId(Long itemId);
+    Stream<BookingDto> streamByOwnerId(Long userId);
 
+    /**
+     * Bookings that ended before {@code cutoff}, oldest first. Undecided ones are left for the expiry job.
+     */
     @Query("""
-    select b.start
+    select b.id
     from Booking b
-    where b.item.id = ?1 and b.start > CURRENT TIMESTAMP
-    order by b.id asc
-    limit 1
+    where b.phase = ru.practicum.shareit.booking.BookingPhase.PAST and b.end < ?1
+        and b.status <> ru.practicum.shareit.booking.BookingStatus.WAITING
+    order by b.end
     """)
-    LocalDateTime getNextStartDateByItemId(Long itemId);
+    List<Long> findArchivableIds(LocalDateTime cutoff, Limit limit);
 }
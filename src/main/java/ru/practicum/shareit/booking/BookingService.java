@@ -1,21 +1,54 @@
 package ru.practicum.shareit.booking;
 
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
+import ru.practicum.shareit.booking.dto.BookingDecisionRequest;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.CreateBookingRequest;
+import ru.practicum.shareit.util.FieldSet;
+import ru.practicum.shareit.util.KeysetPage;
 import java.util.List;
+import java.util.Set;
 
 public interface BookingService {
     BookingDto createBooking(CreateBookingRequest request, Long userId);
 
-    BookingDto approveBooking(Long bookingId, Long userId, Boolean approved);
+    BookingBatchResultDto createBookings(List<CreateBookingRequest> requests, Long userId, BookingBatchMode mode);
+
+    BookingDto approveBooking(Long bookingId, Long userId, Boolean approved, Long expectedVersion);
+
+    List<BookingDto> approveBookings(List<BookingDecisionRequest> decisions, Long userId);
 
     BookingDto getBookingById(Long bookingId, Long userId);
 
-    List<BookingDto> getBookingsByUserId(Long userId);
+    String getBookingETag(Long bookingId, Long userId);
+
+    /**
+     * Returns the bookings ordered by id; fails if any of them does not exist or is not visible to the user.
+     */
+    List<BookingDto> getBookingsByIds(Set<Long> bookingIds, Long userId);
+
+    /**
+     * Checks the user right away; the bookings themselves are read when the export is consumed.
+     */
+    BookingExport exportBookingsByBooker(Long userId);
+
+    BookingExport exportBookingsByOwner(Long userId);
+
+    /**
+     * Lists the user's bookings; the item is left out, and not joined, unless {@code fields} asks for it.
+     */
+    KeysetPage<BookingDto> getBookingsByUserAndState(Long userId, BookingState bookingState, String cursor,
+                                                     int size, FieldSet fields);
 
-    List<BookingDto> getBookingsByOwnerId(Long userId);
+    KeysetPage<BookingDto> getBookingsByOwnerAndState(Long userId, BookingState bookingState, String cursor,
+                                                      int size);
 
-    List<BookingDto> getBookingsByUserAndState(Long userId, BookingState bookingState);
+    /**
+     * Lists archived bookings. They have all ended, so only {@code ALL}, {@code PAST} and {@code REJECTED} match.
+     */
+    KeysetPage<BookingDto> getBookingHistoryByUserAndState(Long userId, BookingState bookingState, String cursor,
+                                                           int size);
 
-    List<BookingDto> getBookingsByOwnerAndState(Long userId, BookingState bookingState);
+    KeysetPage<BookingDto> getBookingHistoryByOwnerAndState(Long userId, BookingState bookingState, String cursor,
+                                                            int size);
 }
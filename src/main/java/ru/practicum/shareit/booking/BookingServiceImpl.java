@@ -1,46 +1,163 @@
 package ru.practicum.shareit.booking;
 
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.dto.BookingBatchEntryDto;
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
+import ru.practicum.shareit.booking.dto.BookingDecisionRequest;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.CreateBookingRequest;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.exception.ValidationException;
+import ru.practicum.shareit.item.ItemChangedEvent;
 import ru.practicum.shareit.item.ItemService;
 import ru.practicum.shareit.item.ItemShort;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.user.*;
 import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.util.EntityTags;
+import ru.practicum.shareit.util.FieldSet;
+import ru.practicum.shareit.util.IntegrityViolations;
+import ru.practicum.shareit.util.KeysetCursor;
+import ru.practicum.shareit.util.KeysetPage;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @Transactional(readOnly = true)
 @RequiredArgsConstructor
 public class BookingServiceImpl implements BookingService {
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final int MAX_BATCH_SIZE = 500;
+    private static final String ITEM_ALREADY_BOOKED = "Item is already booked for the requested period";
+    private static final String NO_OVERLAP_CONSTRAINT = "bookings_no_overlap";
+    private static final String BOOKER_CONSTRAINT = "bookings_users_fk";
 
     private final BookingRepository bookingRepository;
+    private final ArchivedBookingRepository archivedBookingRepository;
+    private final BookingIntervalIndex bookingIntervalIndex;
+    private final ItemLockManager itemLockManager;
     private final ItemService itemServiceImpl;
     private final UserService userServiceImpl;
+    private final Validator validator;
+    private final PlatformTransactionManager transactionManager;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     @Transactional
     public BookingDto createBooking(CreateBookingRequest request, Long userId) {
-        validateCreateBooking(request, userId);
-
+        itemLockManager.lock(request.getItemId());
+        userServiceImpl.checkUserId(userId);
         Item item = itemServiceImpl.getItemById(request.getItemId());
-        User user = userServiceImpl.getUserById(userId);
-        Booking booking = bookingRepository.save(BookingMapper.mapToBooking(request, item, user));
+        validateCreateBooking(request, item, userId);
+
+        User user = userServiceImpl.getUserReference(userId);
+        Booking booking = saveBooking(BookingMapper.mapToBooking(request, item, user));
+        bookingIntervalIndex.put(item.getId(), BookingMapper.mapToInterval(booking));
 
         return BookingMapper.mapToDto(booking, new ItemShort(item.getId(), item.getName()),
                 new UserShort(userId));
     }
 
+    /**
+     * Validates every entry up front, a {@code null} entry included, then writes the accepted ones
+     * with a single flush, which the JDBC batch size turns into a few multi-row inserts. In
+     * {@link BookingBatchMode#ATOMIC} mode nothing is written if any entry is refused.
+     */
     @Override
     @Transactional
-    public BookingDto approveBooking(Long bookingId, Long userId, Boolean approved) {
+    public BookingBatchResultDto createBookings(List<CreateBookingRequest> requests, Long userId,
+                                                BookingBatchMode mode) {
+        if (requests == null || requests.isEmpty() || requests.size() > MAX_BATCH_SIZE) {
+            throw new ValidationException(
+                    String.format("Batch must contain between 1 and %d bookings", MAX_BATCH_SIZE));
+        }
+        userServiceImpl.checkUserId(userId);
+
+        Set<Long> itemIds = requests.stream()
+                .filter(Objects::nonNull)
+                .map(CreateBookingRequest::getItemId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        // one call, so the locks are taken in the manager's global order and batches cannot deadlock
+        itemLockManager.lockAll(itemIds);
+        Map<Long, Item> items = itemServiceImpl.getItemsByIds(itemIds);
+        bookingIntervalIndex.preload(items.keySet());
+
+        List<BookingBatchEntryDto> results = new ArrayList<>(requests.size());
+        Map<Long, List<CreateBookingRequest>> accepted = new HashMap<>();
+        for (int i = 0; i < requests.size(); i++) {
+            BookingBatchEntryDto result = new BookingBatchEntryDto();
+            result.setIndex(i);
+            results.add(result);
+            try {
+                CreateBookingRequest request = requests.get(i);
+                if (request == null) {
+                    throw new ValidationException("Booking must not be null");
+                }
+                validateBatchEntry(request, items.get(request.getItemId()), userId, accepted);
+                accepted.computeIfAbsent(request.getItemId(), itemId -> new ArrayList<>()).add(request);
+            } catch (ValidationException | NotFoundException e) {
+                result.setError(e.getMessage());
+            }
+        }
+
+        boolean applied = mode == BookingBatchMode.PARTIAL
+                || results.stream().allMatch(result -> result.getError() == null);
+        if (applied) {
+            User user = userServiceImpl.getUserReference(userId);
+            List<Booking> bookings = new ArrayList<>(requests.size());
+            for (BookingBatchEntryDto result : results) {
+                if (result.getError() == null) {
+                    CreateBookingRequest request = requests.get(result.getIndex());
+                    bookings.add(BookingMapper.mapToBooking(request, items.get(request.getItemId()), user));
+                }
+            }
+
+            saveBookings(bookings);
+            Iterator<Booking> saved = bookings.iterator();
+            for (BookingBatchEntryDto result : results) {
+                if (result.getError() == null) {
+                    Booking booking = saved.next();
+                    bookingIntervalIndex.put(booking.getItem().getId(), BookingMapper.mapToInterval(booking));
+                    result.setBooking(BookingMapper.mapToDto(booking,
+                            new ItemShort(booking.getItem().getId(), booking.getItem().getName()),
+                            new UserShort(userId)));
+                }
+            }
+        }
+
+        BookingBatchResultDto batch = new BookingBatchResultDto();
+        batch.setMode(mode);
+        batch.setApplied(applied);
+        batch.setCreated((int) results.stream().filter(result -> result.getBooking() != null).count());
+        batch.setResults(results);
+        return batch;
+    }
+
+    @Override
+    @Transactional
+    public BookingDto approveBooking(Long bookingId, Long userId, Boolean approved, Long expectedVersion) {
         try {
             userServiceImpl.checkUserId(userId);
         } catch (NotFoundException e) {
@@ -48,22 +165,112 @@ public class BookingServiceImpl implements BookingService {
         }
 
 
-        Booking booking = bookingRepository.findById(bookingId)
+        Long itemId = bookingRepository.findItemIdById(bookingId)
                 .orElseThrow(() -> new NotFoundException("Booking not found"));
+        itemLockManager.lock(itemId);
+        itemServiceImpl.validateItem(itemId, userId);
 
-        itemServiceImpl.validateItem(booking.getItem().getId(), userId);
+        Booking booking = bookingRepository.findById(bookingId)
+                .orElseThrow(() -> new NotFoundException("Booking not found"));
+        EntityTags.checkVersion(expectedVersion, booking.getVersion());
+        if (booking.getStatus() != BookingStatus.WAITING) {
+            throw new ValidationException("Booking has already been processed");
+        }
 
         if (approved) {
+            bookingIntervalIndex.findApprovedConflict(itemId, BookingMapper.mapToInterval(booking))
+                    .ifPresent(conflict -> {
+                        throw new ValidationException(ITEM_ALREADY_BOOKED);
+                    });
             booking.setStatus(BookingStatus.APPROVED);
         } else {
             booking.setStatus(BookingStatus.REJECTED);
         }
 
-        return BookingMapper.mapToDto(bookingRepository.save(booking),
+        booking = saveBooking(booking);
+        bookingIntervalIndex.put(itemId, BookingMapper.mapToInterval(booking));
+        publishBookingChange(booking);
+
+        return BookingMapper.mapToDto(booking,
                 new ItemShort(booking.getItem().getId(),  booking.getItem().getName()),
                 new UserShort(booking.getBooker().getId()));
     }
 
+    /**
+     * Applies all decisions or none. Bookings and their items are loaded with one query, the status
+     * changes are flushed together as one JDBC batch of versioned updates; a booking changed since
+     * it was loaded fails the whole request with an optimistic locking conflict.
+     */
+    @Override
+    @Transactional
+    public List<BookingDto> approveBookings(List<BookingDecisionRequest> decisions, Long userId) {
+        if (decisions == null || decisions.isEmpty() || decisions.size() > MAX_BATCH_SIZE) {
+            throw new ValidationException(
+                    String.format("Batch must contain between 1 and %d decisions", MAX_BATCH_SIZE));
+        }
+        if (decisions.stream().anyMatch(decision -> decision.getBookingId() == null || decision.getApproved() == null)) {
+            throw new ValidationException("`bookingId` and `approved` must be set for every decision");
+        }
+        Set<Long> bookingIds = decisions.stream()
+                .map(BookingDecisionRequest::getBookingId)
+                .collect(Collectors.toSet());
+        if (bookingIds.size() < decisions.size()) {
+            throw new ValidationException("Every booking may be decided only once");
+        }
+
+        try {
+            userServiceImpl.checkUserId(userId);
+        } catch (NotFoundException e) {
+            throw new ValidationException("User not found");
+        }
+
+        Map<Long, Booking> bookings = bookingRepository.findWithItemByIdIn(bookingIds).stream()
+                .collect(Collectors.toMap(Booking::getId, booking -> booking));
+        for (Long bookingId : bookingIds) {
+            Booking booking = bookings.get(bookingId);
+            if (booking == null) {
+                throw new NotFoundException(String.format("Booking %d not found", bookingId));
+            }
+            if (!Objects.equals(booking.getItem().getOwner().getId(), userId)) {
+                throw new ValidationException("Данная вещь принадлежит другому пользователю");
+            }
+        }
+
+        // one call, so the locks are taken in the manager's global order, shared with batch creation
+        itemLockManager.lockAll(bookings.values().stream()
+                .map(booking -> booking.getItem().getId())
+                .collect(Collectors.toSet()));
+
+        for (BookingDecisionRequest decision : decisions) {
+            Booking booking = bookings.get(decision.getBookingId());
+            if (booking.getStatus() != BookingStatus.WAITING) {
+                throw new ValidationException(
+                        String.format("Booking %d has already been processed", booking.getId()));
+            }
+
+            Long itemId = booking.getItem().getId();
+            if (decision.getApproved()) {
+                bookingIntervalIndex.findApprovedConflict(itemId, BookingMapper.mapToInterval(booking))
+                        .ifPresent(conflict -> {
+                            throw new ValidationException(ITEM_ALREADY_BOOKED);
+                        });
+                booking.setStatus(BookingStatus.APPROVED);
+            } else {
+                booking.setStatus(BookingStatus.REJECTED);
+            }
+            bookingIntervalIndex.put(itemId, BookingMapper.mapToInterval(booking));
+        }
+        saveBookings(decisions.stream().map(decision -> bookings.get(decision.getBookingId())).toList());
+        bookings.values().forEach(this::publishBookingChange);
+
+        return decisions.stream()
+                .map(decision -> bookings.get(decision.getBookingId()))
+                .map(booking -> BookingMapper.mapToDto(booking,
+                        new ItemShort(booking.getItem().getId(), booking.getItem().getName()),
+                        new UserShort(booking.getBooker().getId())))
+                .toList();
+    }
+
     @Override
     public BookingDto getBookingById(Long bookingId, Long userId) {
         Booking booking = bookingRepository.findById(bookingId)
@@ -75,47 +282,212 @@ public class BookingServiceImpl implements BookingService {
                 new UserShort(userId));
     }
 
+    /**
+     * Loads the bookings with their items in one query and checks them all before returning any.
+     */
+    @Override
+    public List<BookingDto> getBookingsByIds(Set<Long> bookingIds, Long userId) {
+        if (bookingIds == null || bookingIds.isEmpty() || bookingIds.size() > MAX_PAGE_SIZE) {
+            throw new ValidationException(
+                    String.format("`ids` must contain between 1 and %d booking ids", MAX_PAGE_SIZE));
+        }
+
+        List<Booking> bookings = bookingRepository.findWithItemByIdIn(bookingIds);
+        if (bookings.size() < bookingIds.size()) {
+            throw new NotFoundException("Booking not found");
+        }
+        bookings.forEach(booking -> validateViewBooking(booking, userId));
+
+        return bookings.stream()
+                .sorted(Comparator.comparing(Booking::getId))
+                .map(booking -> BookingMapper.mapToDto(booking,
+                        new ItemShort(booking.getItem().getId(), booking.getItem().getName()),
+                        new UserShort(booking.getBooker().getId())))
+                .toList();
+    }
+
+    /**
+     * The booking response embeds the item name, so the tag also covers the item version.
+     */
+    @Override
+    public String getBookingETag(Long bookingId, Long userId) {
+        BookingVersion booking = bookingRepository.findVersionById(bookingId)
+                .orElseThrow(() -> new NotFoundException("Booking not found"));
+
+        if (!Objects.equals(userId, booking.bookerId()) && !Objects.equals(userId, booking.ownerId())) {
+            throw new ValidationException("Restrict access");
+        }
+        return EntityTags.of(booking.version(), booking.itemVersion());
+    }
+
     @Override
-    public List<BookingDto> getBookingsByUserId(Long userId) {
-        userServiceImpl.getUserById(userId);
-        return bookingRepository.findByBookerId(userId);
+    public BookingExport exportBookingsByBooker(Long userId) {
+        userServiceImpl.checkUserId(userId);
+        return consumer -> export(List.of(() -> bookingRepository.streamByBookerId(userId),
+                () -> archivedBookingRepository.streamByBookerId(userId)), consumer);
     }
 
     @Override
-    public List<BookingDto> getBookingsByOwnerId(Long userId) {
-        userServiceImpl.getUserById(userId);
-        return bookingRepository.findByOwnerId(userId);
+    public BookingExport exportBookingsByOwner(Long userId) {
+        userServiceImpl.checkUserId(userId);
+        return consumer -> export(List.of(() -> bookingRepository.streamByOwnerId(userId),
+                () -> archivedBookingRepository.streamByOwnerId(userId)), consumer);
+    }
+
+    /**
+     * Reads the rows in a read-only transaction of its own: the export is usually consumed on
+     * another thread, after the request's transaction has ended. The queries run one after another,
+     * current bookings first and then the archive, all in one snapshot, so a booking the archive
+     * job moves meanwhile is exported exactly once.
+     */
+    private void export(List<Supplier<Stream<BookingDto>>> queries, Consumer<BookingDto> consumer) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(true);
+        transaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        transaction.executeWithoutResult(status -> {
+            for (Supplier<Stream<BookingDto>> query : queries) {
+                try (Stream<BookingDto> bookings = query.get()) {
+                    bookings.forEach(consumer);
+                }
+            }
+        });
     }
 
     @Override
-    public List<BookingDto> getBookingsByUserAndState(Long userId, BookingState bookingState) {
-        userServiceImpl.getUserById(userId);
+    public KeysetPage<BookingDto> getBookingsByUserAndState(Long userId, BookingState bookingState,
+                                                            String cursor, int size, FieldSet fields) {
+        userServiceImpl.checkUserId(userId);
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        Limit limit = pageLimit(size);
+        List<BookingDto> bookings = fields.contains("item")
+                ? findByBookerAndState(userId, bookingState, after, limit)
+                : findWithoutItemByBookerAndState(userId, bookingState, after, limit);
+        return KeysetPage.of(bookings, size, BookingServiceImpl::position);
+    }
+
+    private List<BookingDto> findByBookerAndState(Long userId, BookingState bookingState, KeysetCursor after,
+                                                  Limit limit) {
         return switch (bookingState) {
-            case ALL -> bookingRepository.findByBookerId(userId);
-            case CURRENT -> bookingRepository.getCurrentBookingsByBookerId(userId);
-            case PAST -> bookingRepository.getPastBookingsByBookerId(userId);
-            case FUTURE -> bookingRepository.getFutureBookingsByBookerId(userId);
-            case WAITING -> bookingRepository.findByBookerIdAndStatusId(userId, BookingStatus.WAITING);
-            case REJECTED -> bookingRepository.findByBookerIdAndStatusId(userId, BookingStatus.REJECTED);
+            case ALL -> bookingRepository.findByBookerId(userId, after.time(), after.id(), limit);
+            case CURRENT -> bookingRepository.findByBookerIdAndPhase(userId, BookingPhase.CURRENT,
+                    after.time(), after.id(), limit);
+            case PAST -> bookingRepository.findByBookerIdAndPhase(userId, BookingPhase.PAST,
+                    after.time(), after.id(), limit);
+            case FUTURE -> bookingRepository.findByBookerIdAndPhase(userId, BookingPhase.FUTURE,
+                    after.time(), after.id(), limit);
+            case WAITING -> bookingRepository.findByBookerIdAndStatusId(userId, BookingStatus.WAITING,
+                    after.time(), after.id(), limit);
+            case REJECTED -> bookingRepository.findByBookerIdAndStatusId(userId, BookingStatus.REJECTED,
+                    after.time(), after.id(), limit);
         };
     }
 
-    @Override
-    public List<BookingDto> getBookingsByOwnerAndState(Long userId, BookingState bookingState) {
-        userServiceImpl.getUserById(userId);
+    private List<BookingDto> findWithoutItemByBookerAndState(Long userId, BookingState bookingState,
+                                                             KeysetCursor after, Limit limit) {
         return switch (bookingState) {
-            case ALL -> bookingRepository.findByOwnerId(userId);
-            case CURRENT -> bookingRepository.getCurrentBookingsByOwnerId(userId);
-            case PAST -> bookingRepository.getPastBookingsByOwnerId(userId);
-            case FUTURE -> bookingRepository.getFutureBookingsByOwnerId(userId);
-            case WAITING -> bookingRepository.findByOwnerIdAndStatusId(userId, BookingStatus.WAITING);
-            case REJECTED -> bookingRepository.findByOwnerIdAndStatusId(userId, BookingStatus.REJECTED);
+            case ALL -> bookingRepository.findWithoutItemByBookerId(userId, after.time(), after.id(), limit);
+            case CURRENT -> bookingRepository.findWithoutItemByBookerIdAndPhase(userId, BookingPhase.CURRENT,
+                    after.time(), after.id(), limit);
+            case PAST -> bookingRepository.findWithoutItemByBookerIdAndPhase(userId, BookingPhase.PAST,
+                    after.time(), after.id(), limit);
+            case FUTURE -> bookingRepository.findWithoutItemByBookerIdAndPhase(userId, BookingPhase.FUTURE,
+                    after.time(), after.id(), limit);
+            case WAITING -> bookingRepository.findWithoutItemByBookerIdAndStatusId(userId, BookingStatus.WAITING,
+                    after.time(), after.id(), limit);
+            case REJECTED -> bookingRepository.findWithoutItemByBookerIdAndStatusId(userId, BookingStatus.REJECTED,
+                    after.time(), after.id(), limit);
         };
     }
 
-    private void validateCreateBooking(CreateBookingRequest request, Long bookerUserId) {
-        userServiceImpl.checkUserId(bookerUserId);
-        Item item = itemServiceImpl.getItemById(request.getItemId());
+    @Override
+    public KeysetPage<BookingDto> getBookingsByOwnerAndState(Long userId, BookingState bookingState,
+                                                             String cursor, int size) {
+        userServiceImpl.checkUserId(userId);
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        Limit limit = pageLimit(size);
+        List<BookingDto> bookings = switch (bookingState) {
+            case ALL -> bookingRepository.findByOwnerId(userId, after.time(), after.id(), limit);
+            case CURRENT -> bookingRepository.findByOwnerIdAndPhase(userId, BookingPhase.CURRENT,
+                    after.time(), after.id(), limit);
+            case PAST -> bookingRepository.findByOwnerIdAndPhase(userId, BookingPhase.PAST,
+                    after.time(), after.id(), limit);
+            case FUTURE -> bookingRepository.findByOwnerIdAndPhase(userId, BookingPhase.FUTURE,
+                    after.time(), after.id(), limit);
+            case WAITING -> bookingRepository.findByOwnerIdAndStatusId(userId, BookingStatus.WAITING,
+                    after.time(), after.id(), limit);
+            case REJECTED -> bookingRepository.findByOwnerIdAndStatusId(userId, BookingStatus.REJECTED,
+                    after.time(), after.id(), limit);
+        };
+        return KeysetPage.of(bookings, size, BookingServiceImpl::position);
+    }
+
+    @Override
+    public KeysetPage<BookingDto> getBookingHistoryByUserAndState(Long userId, BookingState bookingState,
+                                                                  String cursor, int size) {
+        userServiceImpl.checkUserId(userId);
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        Limit limit = pageLimit(size);
+        List<BookingDto> bookings = switch (bookingState) {
+            case ALL, PAST -> archivedBookingRepository.findByBookerId(userId, after.time(), after.id(), limit);
+            case REJECTED -> archivedBookingRepository.findByBookerIdAndStatus(userId, BookingStatus.REJECTED,
+                    after.time(), after.id(), limit);
+            case CURRENT, FUTURE, WAITING -> List.of();
+        };
+        return KeysetPage.of(bookings, size, BookingServiceImpl::position);
+    }
+
+    @Override
+    public KeysetPage<BookingDto> getBookingHistoryByOwnerAndState(Long userId, BookingState bookingState,
+                                                                   String cursor, int size) {
+        userServiceImpl.checkUserId(userId);
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        Limit limit = pageLimit(size);
+        List<BookingDto> bookings = switch (bookingState) {
+            case ALL, PAST -> archivedBookingRepository.findByOwnerId(userId, after.time(), after.id(), limit);
+            case REJECTED -> archivedBookingRepository.findByOwnerIdAndStatus(userId, BookingStatus.REJECTED,
+                    after.time(), after.id(), limit);
+            case CURRENT, FUTURE, WAITING -> List.of();
+        };
+        return KeysetPage.of(bookings, size, BookingServiceImpl::position);
+    }
+
+    private Limit pageLimit(int size) {
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new ValidationException(String.format("`size` must be between 1 and %d", MAX_PAGE_SIZE));
+        }
+        return Limit.of(size + 1);
+    }
+
+    /**
+     * Position of the booking in listings ordered by {@code start desc, id desc}.
+     */
+    private static KeysetCursor position(BookingDto booking) {
+        return new KeysetCursor(booking.getStart(), booking.getId());
+    }
+
+    private void validateBatchEntry(CreateBookingRequest request, Item item, Long bookerUserId,
+                                    Map<Long, List<CreateBookingRequest>> accepted) {
+        Set<ConstraintViolation<CreateBookingRequest>> violations = validator.validate(request);
+        if (!violations.isEmpty()) {
+            throw new ValidationException(violations.stream()
+                    .map(violation -> String.format("`%s` %s", violation.getPropertyPath(), violation.getMessage()))
+                    .sorted()
+                    .collect(Collectors.joining(", ")));
+        }
+
+        if (item == null) {
+            throw new NotFoundException("Item not found");
+        }
+        validateCreateBooking(request, item, bookerUserId);
+
+        for (CreateBookingRequest other : accepted.getOrDefault(item.getId(), List.of())) {
+            if (other.getStart().isBefore(request.getEnd()) && other.getEnd().isAfter(request.getStart())) {
+                throw new ValidationException(ITEM_ALREADY_BOOKED);
+            }
+        }
+    }
+
+    private void validateCreateBooking(CreateBookingRequest request, Item item, Long bookerUserId) {
         Long ownerId = item.getOwner().getId();
 
         if (!item.getIsAvailable()) {
@@ -133,6 +505,50 @@ public class BookingServiceImpl implements BookingService {
         if (request.getStart().equals(request.getEnd())) {
             throw new ValidationException("`start` must not be equals `end`");
         }
+
+        if (bookingIntervalIndex.findConflict(item.getId(), request.getStart(), request.getEnd()).isPresent()) {
+            throw new ValidationException(ITEM_ALREADY_BOOKED);
+        }
+    }
+
+    /**
+     * Only APPROVED bookings show on the item card, so new and rejected ones do not change it.
+     */
+    private void publishBookingChange(Booking booking) {
+        if (booking.getStatus() == BookingStatus.APPROVED) {
+            eventPublisher.publishEvent(ItemChangedEvent.bookingsChanged(booking.getItem().getId()));
+        }
+    }
+
+    private Booking saveBooking(Booking booking) {
+        try {
+            return bookingRepository.saveAndFlush(booking);
+        } catch (DataIntegrityViolationException e) {
+            throw translateIntegrityViolation(e);
+        }
+    }
+
+    private void saveBookings(List<Booking> bookings) {
+        try {
+            bookingRepository.saveAllAndFlush(bookings);
+        } catch (DataIntegrityViolationException e) {
+            throw translateIntegrityViolation(e);
+        }
+    }
+
+    /**
+     * Reports a violation of the database overlap backstop as a booking conflict, and a booker
+     * deleted on another node after the existence check as a missing user; any other integrity
+     * violation is a bug and is rethrown as is.
+     */
+    private static RuntimeException translateIntegrityViolation(DataIntegrityViolationException e) {
+        if (IntegrityViolations.isViolationOf(e, NO_OVERLAP_CONSTRAINT)) {
+            return new ValidationException(ITEM_ALREADY_BOOKED);
+        }
+        if (IntegrityViolations.isViolationOf(e, BOOKER_CONSTRAINT)) {
+            return new NotFoundException("User not found");
+        }
+        return e;
     }
 
     private void validateViewBooking(Booking booking, Long userId) {
@@ -0,0 +1,4 @@
+package ru.practicum.shareit.booking;
+
+public record BookingVersion(Long version, Long itemVersion, Long bookerId, Long ownerId) {
+}
@@ -0,0 +1,72 @@
+package ru.practicum.shareit.booking;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Remembers which users have completed an APPROVED booking of which items, the condition for
+ * commenting on an item. Once true it stays true, so only positive answers are cached: they are
+ * added by {@link BookingPhaseSweeper} as bookings end and by lookups that found one in the database.
+ */
+@Component
+public class CompletedBookingCache {
+    static final String CACHE_NAME = "completedBookings";
+
+    private final Cache<BookerItem, Boolean> completed;
+
+    public CompletedBookingCache(@Value("${shareit.booking.completed-cache.size:100000}") long maximumSize,
+                                 @Value("${shareit.booking.completed-cache.ttl:PT24H}") Duration ttl,
+                                 MeterRegistry meterRegistry) {
+        completed = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, completed, CACHE_NAME);
+    }
+
+    /**
+     * @param loader checks the database when the pair is not cached
+     */
+    public boolean hasCompleted(Long bookerId, Long itemId, BooleanSupplier loader) {
+        BookerItem key = new BookerItem(bookerId, itemId);
+        if (completed.getIfPresent(key) != null) {
+            return true;
+        }
+
+        boolean found = loader.getAsBoolean();
+        if (found) {
+            completed.put(key, true);
+        }
+        return found;
+    }
+
+    /**
+     * Records bookings that have ended once the transaction that saw them end commits.
+     */
+    public void bookingsEnded(Collection<BookerItem> pairs) {
+        if (pairs.isEmpty()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            pairs.forEach(pair -> completed.put(pair, true));
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                pairs.forEach(pair -> completed.put(pair, true));
+            }
+        });
+    }
+}
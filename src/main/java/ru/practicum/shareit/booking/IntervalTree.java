@@ -0,0 +1,202 @@
+package ru.practicum.shareit.booking;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Predicate;
+
+/**
+ * AVL tree of booking intervals ordered by {@code (start, bookingId)} where every node also keeps
+ * the latest end in its subtree, so overlap lookups take O(log n + k). Not thread-safe.
+ */
+class IntervalTree {
+    private static final Comparator<BookingInterval> ORDER = Comparator.comparing(BookingInterval::start)
+            .thenComparing(BookingInterval::bookingId);
+
+    private Node root;
+    private int size;
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Adds the interval, replacing an interval with the same start and booking id.
+     */
+    void insert(BookingInterval interval) {
+        root = insert(root, interval);
+    }
+
+    boolean remove(BookingInterval interval) {
+        int before = size;
+        root = remove(root, interval);
+        return size < before;
+    }
+
+    Optional<BookingInterval> findFirstOverlapping(LocalDateTime start, LocalDateTime end,
+                                                   Predicate<BookingInterval> filter) {
+        List<BookingInterval> found = new ArrayList<>(1);
+        collectOverlapping(root, start, end, filter, found, 1);
+        return found.stream().findFirst();
+    }
+
+    /**
+     * Returns intervals overlapping {@code [start, end)} in start order.
+     */
+    List<BookingInterval> findOverlapping(LocalDateTime start, LocalDateTime end) {
+        List<BookingInterval> found = new ArrayList<>();
+        collectOverlapping(root, start, end, interval -> true, found, Integer.MAX_VALUE);
+        return found;
+    }
+
+    /**
+     * Drops intervals that ended at or before {@code instant}; they can no longer conflict with anything.
+     */
+    void removeEndedBefore(LocalDateTime instant) {
+        List<BookingInterval> ended = new ArrayList<>();
+        collectEnded(root, instant, ended);
+        ended.forEach(this::remove);
+    }
+
+    private void collectOverlapping(Node node, LocalDateTime start, LocalDateTime end,
+                                    Predicate<BookingInterval> filter, List<BookingInterval> found, int limit) {
+        if (node == null || found.size() >= limit || !node.maxEnd.isAfter(start)) {
+            return;
+        }
+
+        collectOverlapping(node.left, start, end, filter, found, limit);
+        if (found.size() < limit && node.interval.overlaps(start, end) && filter.test(node.interval)) {
+            found.add(node.interval);
+        }
+
+        if (node.interval.start().isBefore(end)) {
+            collectOverlapping(node.right, start, end, filter, found, limit);
+        }
+    }
+
+    private void collectEnded(Node node, LocalDateTime instant, List<BookingInterval> ended) {
+        if (node == null) {
+            return;
+        }
+
+        collectEnded(node.left, instant, ended);
+        if (node.interval.start().isBefore(instant)) {
+            if (!node.interval.end().isAfter(instant)) {
+                ended.add(node.interval);
+            }
+            collectEnded(node.right, instant, ended);
+        }
+    }
+
+    private Node insert(Node node, BookingInterval interval) {
+        if (node == null) {
+            size++;
+            return new Node(interval);
+        }
+
+        int compare = ORDER.compare(interval, node.interval);
+        if (compare < 0) {
+            node.left = insert(node.left, interval);
+        } else if (compare > 0) {
+            node.right = insert(node.right, interval);
+        } else {
+            node.interval = interval;
+        }
+        return rebalance(node);
+    }
+
+    private Node remove(Node node, BookingInterval interval) {
+        if (node == null) {
+            return null;
+        }
+
+        int compare = ORDER.compare(interval, node.interval);
+        if (compare < 0) {
+            node.left = remove(node.left, interval);
+        } else if (compare > 0) {
+            node.right = remove(node.right, interval);
+        } else {
+            size--;
+            if (node.left == null || node.right == null) {
+                return node.left != null ? node.left : node.right;
+            }
+
+            Node successor = node.right;
+            while (successor.left != null) {
+                successor = successor.left;
+            }
+            node.interval = successor.interval;
+            size++;
+            node.right = remove(node.right, successor.interval);
+        }
+        return rebalance(node);
+    }
+
+    private Node rebalance(Node node) {
+        update(node);
+        int balance = height(node.left) - height(node.right);
+        if (balance > 1) {
+            if (height(node.left.left) < height(node.left.right)) {
+                node.left = rotateLeft(node.left);
+            }
+            return rotateRight(node);
+        }
+
+        if (balance < -1) {
+            if (height(node.right.right) < height(node.right.left)) {
+                node.right = rotateRight(node.right);
+            }
+            return rotateLeft(node);
+        }
+        return node;
+    }
+
+    private Node rotateRight(Node node) {
+        Node pivot = node.left;
+        node.left = pivot.right;
+        pivot.right = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private Node rotateLeft(Node node) {
+        Node pivot = node.right;
+        node.right = pivot.left;
+        pivot.left = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private static void update(Node node) {
+        node.height = 1 + Math.max(height(node.left), height(node.right));
+        LocalDateTime maxEnd = node.interval.end();
+        if (node.left != null && node.left.maxEnd.isAfter(maxEnd)) {
+            maxEnd = node.left.maxEnd;
+        }
+        if (node.right != null && node.right.maxEnd.isAfter(maxEnd)) {
+            maxEnd = node.right.maxEnd;
+        }
+        node.maxEnd = maxEnd;
+    }
+
+    private static int height(Node node) {
+        return node == null ? 0 : node.height;
+    }
+
+    private static final class Node {
+        private BookingInterval interval;
+        private Node left;
+        private Node right;
+        private int height = 1;
+        private LocalDateTime maxEnd;
+
+        private Node(BookingInterval interval) {
+            this.interval = interval;
+            this.maxEnd = interval.end();
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package ru.practicum.shareit.booking;
+
+import java.time.LocalDateTime;
+
+public record ItemBookingInterval(Long itemId, Long bookingId, LocalDateTime start, LocalDateTime end,
+                                  BookingStatus status) {
+
+    public BookingInterval toInterval() {
+        return new BookingInterval(bookingId, start, end, status);
+    }
+}
@@ -0,0 +1,22 @@
+package ru.practicum.shareit.booking;
+
+import java.util.Collection;
+
+/**
+ * Serializes booking writes per item: writes on the same item run one after another,
+ * writes on different items run in parallel.
+ */
+public interface ItemLockManager {
+
+    /**
+     * Blocks until the current transaction holds the item's lock. The lock is released when the
+     * transaction completes, so the next writer sees the committed result.
+     */
+    void lock(Long itemId);
+
+    /**
+     * Locks all the given items, taking the underlying locks in an order every caller shares, so
+     * transactions locking overlapping sets of items never wait on each other in a cycle.
+     */
+    void lockAll(Collection<Long> itemIds);
+}
@@ -0,0 +1,15 @@
+package ru.practicum.shareit.booking;
+
+/**
+ * Keeps background jobs from running the same work concurrently, on this node or on others.
+ */
+public interface JobLockManager {
+
+    /**
+     * Tries to take the job's lock for the current transaction without waiting. The lock is
+     * released when the transaction completes.
+     *
+     * @return {@code false} if another transaction holds the lock
+     */
+    boolean tryLock(String job);
+}
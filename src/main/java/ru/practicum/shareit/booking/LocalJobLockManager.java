@@ -0,0 +1,37 @@
+package ru.practicum.shareit.booking;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-process job locks for a single node.
+ */
+@Component
+@ConditionalOnProperty(name = "shareit.booking.lock-mode", havingValue = "local", matchIfMissing = true)
+public class LocalJobLockManager implements JobLockManager {
+    private final ConcurrentMap<String, ReentrantLock> locks = new ConcurrentHashMap<>();
+
+    @Override
+    public boolean tryLock(String job) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Job lock requires an active transaction");
+        }
+
+        ReentrantLock lock = locks.computeIfAbsent(job, name -> new ReentrantLock());
+        if (!lock.tryLock()) {
+            return false;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                lock.unlock();
+            }
+        });
+        return true;
+    }
+}
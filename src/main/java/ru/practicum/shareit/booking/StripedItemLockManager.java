@@ -0,0 +1,65 @@
+package ru.practicum.shareit.booking;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import java.util.Collection;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-process item locks for a single node: item ids are hashed onto a fixed set of lock stripes.
+ */
+@Component
+@ConditionalOnProperty(name = "shareit.booking.lock-mode", havingValue = "local", matchIfMissing = true)
+public class StripedItemLockManager implements ItemLockManager {
+    private final ReentrantLock[] stripes;
+
+    public StripedItemLockManager(@Value("${shareit.booking.lock-stripes:256}") int stripeCount) {
+        stripes = new ReentrantLock[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    @Override
+    public void lock(Long itemId) {
+        checkTransaction();
+        lockStripe(stripeIndex(itemId));
+    }
+
+    /**
+     * Several items may share a stripe, so the stripes, not the item ids, are locked in ascending order.
+     */
+    @Override
+    public void lockAll(Collection<Long> itemIds) {
+        checkTransaction();
+        itemIds.stream()
+                .map(this::stripeIndex)
+                .distinct()
+                .sorted()
+                .forEach(this::lockStripe);
+    }
+
+    private int stripeIndex(Long itemId) {
+        return Math.floorMod(itemId.hashCode(), stripes.length);
+    }
+
+    private static void checkTransaction() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Item lock requires an active transaction");
+        }
+    }
+
+    private void lockStripe(int index) {
+        ReentrantLock stripe = stripes[index];
+        stripe.lock();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                stripe.unlock();
+            }
+        });
+    }
+}
@@ -0,0 +1,15 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.Data;
+
+/**
+ * Outcome of one entry of a batch, in request order: either the created booking or the reason it was refused.
+ */
+@Data
+public class BookingBatchEntryDto {
+    private int index;
+
+    private BookingDto booking;
+
+    private String error;
+}
@@ -0,0 +1,16 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.Data;
+import ru.practicum.shareit.booking.BookingBatchMode;
+import java.util.List;
+
+@Data
+public class BookingBatchResultDto {
+    private BookingBatchMode mode;
+
+    private boolean applied;
+
+    private int created;
+
+    private List<BookingBatchEntryDto> results;
+}
@@ -0,0 +1,13 @@
+package ru.practicum.shareit.booking.dto;
+
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+@Data
+public class BookingDecisionRequest {
+    @NotNull
+    private Long bookingId;
+
+    @NotNull
+    private Boolean approved;
+}
@@ -1,13 +1,16 @@
 package ru.practicum.shareit.booking.dto;
 
+import com.fasterxml.jackson.annotation.JsonFilter;
 import jakarta.validation.constraints.NotNull;
 import lombok.Data;
 import ru.practicum.shareit.booking.BookingStatus;
 import ru.practicum.shareit.item.ItemShort;
 import ru.practicum.shareit.user.UserShort;
+import ru.practicum.shareit.util.FieldSet;
 import java.time.LocalDateTime;
 
 @Data
+@JsonFilter(FieldSet.FILTER)
 public class BookingDto {
     @NotNull
     private Long id;
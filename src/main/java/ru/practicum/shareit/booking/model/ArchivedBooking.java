@@ -0,0 +1,44 @@
+package ru.practicum.shareit.booking.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+import ru.practicum.shareit.booking.BookingStatus;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.model.User;
+import java.time.LocalDateTime;
+
+/**
+ * Booking moved out of the {@code bookings} table by the archive job once it ended long ago.
+ * Rows are only ever inserted and read.
+ */
+@Getter
+@Setter
+@RequiredArgsConstructor
+@Entity
+@Table(name = "bookings_archive")
+public class ArchivedBooking {
+    @Id
+    private Long id;
+
+    @Column(name = "start_date", nullable = false)
+    private LocalDateTime start;
+
+    @Column(name = "end_date", nullable = false)
+    private LocalDateTime end;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "item_id", foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
+    private Item item;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "booker_id", foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
+    private User booker;
+
+    @Enumerated(EnumType.ORDINAL)
+    private BookingStatus status;
+
+    @Column(nullable = false)
+    private Long version;
+}
@@ -4,6 +4,9 @@ import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+import ru.practicum.shareit.booking.BookingPhase;
 import ru.practicum.shareit.booking.BookingStatus;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.user.model.User;
@@ -16,7 +19,8 @@ import java.time.LocalDateTime;
 @Table(name = "bookings")
 public class Booking {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "bookings_seq")
+    @SequenceGenerator(name = "bookings_seq", sequenceName = "bookings_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "start_date", nullable = false)
@@ -27,12 +31,28 @@ public class Booking {
 
     @ManyToOne(cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     @JoinColumn(name = "item_id")
+    @OnDelete(action = OnDeleteAction.CASCADE)
     private Item item;
 
     @ManyToOne(cascade = CascadeType.ALL, fetch = FetchType.LAZY)
-    @JoinColumn(name = "booker_id")
+    @JoinColumn(name = "booker_id", foreignKey = @ForeignKey(name = "bookings_users_fk"))
+    @OnDelete(action = OnDeleteAction.CASCADE)
     private User booker;
 
     @Enumerated(EnumType.ORDINAL)
     private BookingStatus status;
+
+    @Enumerated(EnumType.ORDINAL)
+    @Column(nullable = false)
+    private BookingPhase phase;
+
+    @Version
+    private Long version;
+
+    @PrePersist
+    void initPhase() {
+        if (phase == null) {
+            phase = BookingPhase.of(start, end, LocalDateTime.now());
+        }
+    }
 }
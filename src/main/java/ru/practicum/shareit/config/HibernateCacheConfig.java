@@ -0,0 +1,62 @@
+package ru.practicum.shareit.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.JCacheMetrics;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.cache.spi.CachingProvider;
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.UUID;
+
+/**
+ * Caffeine-backed JCache regions for the Hibernate second-level cache. Every application context
+ * gets its own cache manager, so contexts sharing a JVM (as in tests) never see each other's entries.
+ */
+@Configuration
+public class HibernateCacheConfig {
+    public static final String USERS_REGION = "users";
+    public static final String ITEMS_REGION = "items";
+
+    private static final List<String> REGIONS = List.of(USERS_REGION, ITEMS_REGION);
+
+    @Bean(destroyMethod = "close")
+    public CacheManager hibernateCacheManager(@Value("${shareit.hibernate-cache.maximum-size:10000}") long maximumSize,
+                                              @Value("${shareit.hibernate-cache.ttl:PT1H}") Duration ttl) {
+        CachingProvider provider = Caching.getCachingProvider(CaffeineCachingProvider.class.getName());
+        CacheManager cacheManager = provider.getCacheManager(URI.create("urn:shareit:hibernate:" + UUID.randomUUID()),
+                getClass().getClassLoader());
+
+        for (String region : REGIONS) {
+            CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+            configuration.setMaximumSize(OptionalLong.of(maximumSize));
+            configuration.setExpireAfterWrite(OptionalLong.of(ttl.toNanos()));
+            configuration.setStatisticsEnabled(true);
+            cacheManager.createCache(region, configuration);
+        }
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer hibernateCacheManagerCustomizer(CacheManager hibernateCacheManager) {
+        return properties -> properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+    }
+
+    /**
+     * Publishes hits, misses, puts and evictions of every region as {@code cache.*} meters tagged with the region name.
+     */
+    @Bean
+    public MeterBinder hibernateCacheMetrics(CacheManager hibernateCacheManager) {
+        return registry -> REGIONS.forEach(region ->
+                JCacheMetrics.monitor(registry, hibernateCacheManager.getCache(region)));
+    }
+}
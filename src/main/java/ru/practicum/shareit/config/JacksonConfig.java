@@ -0,0 +1,21 @@
+package ru.practicum.shareit.config;
+
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import org.springframework.boot.autoconfigure.jackson.Jackson2ObjectMapperBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import ru.practicum.shareit.util.FieldSet;
+
+@Configuration
+public class JacksonConfig {
+
+    /**
+     * Writes DTOs that support sparse fieldsets in full unless a response sets its own {@link FieldSet} filter.
+     */
+    @Bean
+    public Jackson2ObjectMapperBuilderCustomizer fieldSetFilterCustomizer() {
+        return builder -> builder.filters(new SimpleFilterProvider()
+                .addFilter(FieldSet.FILTER, SimpleBeanPropertyFilter.serializeAll()));
+    }
+}
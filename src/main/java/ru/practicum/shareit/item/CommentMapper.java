@@ -21,6 +21,24 @@ public final class CommentMapper {
         return commentDto;
     }
 
+    public static CommentDto toDto(ItemDetailRow row) {
+        CommentDto commentDto = new CommentDto();
+        commentDto.setId(row.commentId());
+        commentDto.setText(row.commentText());
+        commentDto.setAuthorName(row.authorName());
+        commentDto.setCreated(row.commentCreated());
+        return commentDto;
+    }
+
+    public static CommentDto toDto(ItemComment comment) {
+        CommentDto commentDto = new CommentDto();
+        commentDto.setId(comment.id());
+        commentDto.setText(comment.text());
+        commentDto.setAuthorName(comment.authorName());
+        commentDto.setCreated(comment.created());
+        return commentDto;
+    }
+
     public static Comment toEntity(CreateCommentRequest request, User author, Item item) {
         Comment comment = new Comment();
         comment.setText(request.getText());
@@ -1,10 +1,51 @@
 package ru.practicum.shareit.item;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import ru.practicum.shareit.item.model.Comment;
 
-import java.util.Set;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 
 public interface CommentRepository extends JpaRepository<Comment, Long> {
-    Set<Comment> findByItem_Id(Long itemId);
+    /**
+     * Up to {@code limit} newest comments of each of the items.
+     */
+    @Query("""
+    select new ru.practicum.shareit.item.ItemComment(cm.itemId, cm.id, cm.text, cm.authorName, cm.created)
+    from (
+        select c.item.id as itemId, c.id as id, c.text as text, a.name as authorName, c.created as created,
+            row_number() over (partition by c.item.id order by c.created desc, c.id desc) as position
+        from Comment c
+        join c.author a
+        where c.item.id in ?1
+    ) cm
+    where cm.position <= ?2
+    order by cm.itemId, cm.created desc, cm.id desc
+    """)
+    List<ItemComment> findNewestByItemIdIn(Collection<Long> itemIds, int limit);
+
+    /**
+     * Number of comments the user left on each item of other owners, by item id.
+     */
+    @Query("""
+    select new ru.practicum.shareit.item.ItemCommentCount(c.item.id, count(c))
+    from Comment c
+    where c.author.id = ?1 and c.item.owner.id <> ?1
+    group by c.item.id
+    order by c.item.id
+    """)
+    List<ItemCommentCount> countByAuthorIdGroupByItemId(Long authorId);
+
+    @Query("""
+    select new ru.practicum.shareit.item.ItemComment(c.item.id, c.id, c.text, a.name, c.created)
+    from Comment c
+    join c.author a
+    where c.item.id = ?1
+        and (c.created < ?2 or (c.created = ?2 and c.id < ?3))
+    order by c.created desc, c.id desc
+    """)
+    List<ItemComment> findByItemId(Long itemId, LocalDateTime cursorCreated, Long cursorId, Limit limit);
 }
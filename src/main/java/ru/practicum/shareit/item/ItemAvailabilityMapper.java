@@ -0,0 +1,57 @@
+package ru.practicum.shareit.item;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import ru.practicum.shareit.booking.BookingInterval;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
+import ru.practicum.shareit.item.dto.TimeSlotDto;
+import ru.practicum.shareit.item.model.Item;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class ItemAvailabilityMapper {
+
+    /**
+     * Builds the calendar for {@code [from, to)} from bookings sorted by start: overlapping and
+     * adjacent bookings are merged into busy slots, the gaps between them are free slots.
+     */
+    public static ItemAvailabilityDto mapToDto(Item item, LocalDateTime from, LocalDateTime to,
+                                               List<BookingInterval> bookings) {
+        List<TimeSlotDto> busy = new ArrayList<>();
+        for (BookingInterval booking : bookings) {
+            LocalDateTime start = booking.start().isBefore(from) ? from : booking.start();
+            LocalDateTime end = booking.end().isAfter(to) ? to : booking.end();
+            TimeSlotDto last = busy.isEmpty() ? null : busy.getLast();
+            if (last != null && !start.isAfter(last.getEnd())) {
+                if (end.isAfter(last.getEnd())) {
+                    last.setEnd(end);
+                }
+            } else {
+                busy.add(new TimeSlotDto(start, end));
+            }
+        }
+
+        List<TimeSlotDto> free = new ArrayList<>();
+        LocalDateTime cursor = from;
+        for (TimeSlotDto slot : busy) {
+            if (slot.getStart().isAfter(cursor)) {
+                free.add(new TimeSlotDto(cursor, slot.getStart()));
+            }
+            cursor = slot.getEnd();
+        }
+        if (cursor.isBefore(to)) {
+            free.add(new TimeSlotDto(cursor, to));
+        }
+
+        ItemAvailabilityDto availability = new ItemAvailabilityDto();
+        availability.setItemId(item.getId());
+        availability.setAvailable(item.getIsAvailable());
+        availability.setFrom(from);
+        availability.setTo(to);
+        availability.setBusy(busy);
+        availability.setFree(free);
+        return availability;
+    }
+}
@@ -0,0 +1,16 @@
+package ru.practicum.shareit.item;
+
+/**
+ * Published when something shown on the item card changes. Booking changes only show on the
+ * owner's card, so they leave the public card cached.
+ */
+public record ItemChangedEvent(Long itemId, boolean ownerViewOnly) {
+
+    public static ItemChangedEvent itemChanged(Long itemId) {
+        return new ItemChangedEvent(itemId, false);
+    }
+
+    public static ItemChangedEvent bookingsChanged(Long itemId) {
+        return new ItemChangedEvent(itemId, true);
+    }
+}
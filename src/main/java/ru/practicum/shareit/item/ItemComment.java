@@ -0,0 +1,6 @@
+package ru.practicum.shareit.item;
+
+import java.time.LocalDateTime;
+
+public record ItemComment(Long itemId, Long id, String text, String authorName, LocalDateTime created) {
+}
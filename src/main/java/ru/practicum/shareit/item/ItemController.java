@@ -2,17 +2,29 @@ package ru.practicum.shareit.item;
 
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.MappingJacksonValue;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import ru.practicum.shareit.item.dto.*;
+import ru.practicum.shareit.util.EntityTags;
+import ru.practicum.shareit.util.FieldSet;
+import ru.practicum.shareit.util.KeysetPage;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/items")
 @RequiredArgsConstructor
 public class ItemController {
+    private static final String DEFAULT_PAGE_SIZE = "20";
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     private final ItemService itemService;
 
     @PostMapping
@@ -30,12 +42,26 @@ public class ItemController {
         return itemService.createComment(request, itemId, userId);
     }
 
+    @GetMapping("/{item-id}/comments")
+    public ResponseEntity<List<CommentDto>> getComments(@PathVariable("item-id") Long itemId,
+                                                        @RequestParam(required = false, name = "cursor") String cursor,
+                                                        @RequestParam(name = "size", defaultValue = DEFAULT_PAGE_SIZE)
+                                                        Integer size) {
+        KeysetPage<CommentDto> page = itemService.getComments(itemId, cursor, size);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.nextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.nextCursor());
+        }
+        return response.body(page.rows());
+    }
+
     @PatchMapping("/{item-id}")
     @ResponseStatus(HttpStatus.OK)
     public ItemDto update(@Valid @RequestBody UpdateItemRequest request,
                           @RequestHeader(name = "X-Sharer-User-Id") Long userId,
-                          @PathVariable("item-id")  Long itemId) {
-        return itemService.updateItem(request, userId, itemId);
+                          @PathVariable("item-id")  Long itemId,
+                          @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return itemService.updateItem(request, userId, itemId, EntityTags.parseVersion(ifMatch));
     }
 
     @DeleteMapping("/{item-id}")
@@ -46,22 +72,62 @@ public class ItemController {
     }
 
     @GetMapping("/{item-id}")
-    @ResponseStatus(HttpStatus.OK)
     public ItemDto getItemById(@PathVariable("item-id")  Long itemId,
-                               @RequestHeader(name = "X-Sharer-User-Id") Long userId) {
+                               @RequestHeader(name = "X-Sharer-User-Id") Long userId,
+                               WebRequest webRequest) {
+        if (webRequest.checkNotModified(itemService.getItemETag(itemId, userId))) {
+            return null;
+        }
         return itemService.getItemDtoById(itemId, userId);
     }
 
+    @GetMapping(params = "ids")
+    @ResponseStatus(HttpStatus.OK)
+    public MappingJacksonValue getItemsByIds(@RequestParam("ids") Set<Long> itemIds,
+                                             @RequestParam(required = false, name = "fields") String fields,
+                                             @RequestHeader(name = "X-Sharer-User-Id") Long userId) {
+        FieldSet fieldSet = FieldSet.parse(fields, ItemDto.class);
+        return fieldSet.filter(itemService.getItemDtosByIds(itemIds, userId, fieldSet));
+    }
+
+    @GetMapping("/availability")
+    @ResponseStatus(HttpStatus.OK)
+    public List<ItemWindowStatusDto> getItemsAvailability(@RequestParam("ids") Set<Long> itemIds,
+                                                          @RequestParam("from")
+                                                          @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                          @RequestParam("to")
+                                                          @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                                          @RequestHeader(name = "X-Sharer-User-Id") Long userId) {
+        return itemService.getItemsAvailability(itemIds, userId, from, to);
+    }
+
+    @GetMapping("/{item-id}/availability")
+    @ResponseStatus(HttpStatus.OK)
+    public ItemAvailabilityDto getItemAvailability(@PathVariable("item-id") Long itemId,
+                                                   @RequestParam("from")
+                                                   @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                   @RequestParam("to")
+                                                   @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                                   @RequestHeader(name = "X-Sharer-User-Id") Long userId) {
+        return itemService.getItemAvailability(itemId, userId, from, to);
+    }
+
     @GetMapping
     @ResponseStatus(HttpStatus.OK)
-    public List<ItemDto> getItemsByUserId(@RequestHeader(name = "X-Sharer-User-Id") Long userId) {
-        return itemService.getItemsByUserId(userId);
+    public MappingJacksonValue getItemsByUserId(@RequestParam(required = false, name = "fields") String fields,
+                                                @RequestHeader(name = "X-Sharer-User-Id") Long userId) {
+        FieldSet fieldSet = FieldSet.parse(fields, ItemDto.class);
+        return fieldSet.filter(itemService.getItemsByUserId(userId, fieldSet));
     }
 
     @GetMapping("/search")
     @ResponseStatus(HttpStatus.OK)
-    public List<ItemDto> search(@RequestParam("text") String searchString,
-                                @RequestHeader(name = "X-Sharer-User-Id") Long userId) {
-        return itemService.findItems(searchString, userId);
+    public MappingJacksonValue search(@RequestParam("text") String searchString,
+                                      @RequestParam(name = "from", defaultValue = "0") Integer from,
+                                      @RequestParam(name = "size", defaultValue = "20") Integer size,
+                                      @RequestParam(required = false, name = "fields") String fields,
+                                      @RequestHeader(name = "X-Sharer-User-Id") Long userId) {
+        FieldSet fieldSet = FieldSet.parse(fields, ItemDto.class);
+        return fieldSet.filter(itemService.findItems(searchString, userId, from, size));
     }
 }
@@ -0,0 +1,12 @@
+package ru.practicum.shareit.item;
+
+import java.time.LocalDateTime;
+
+/**
+ * Row of the item detail query: the item with its last and next booking dates, repeated for each
+ * of its embedded comments. The comment columns are null when the item has no comments.
+ */
+public record ItemDetailRow(Long id, String name, String description, Boolean available, Long version,
+                            Integer commentCount, LocalDateTime lastBooking, LocalDateTime nextBooking,
+                            Long commentId, String commentText, String authorName, LocalDateTime commentCreated) {
+}
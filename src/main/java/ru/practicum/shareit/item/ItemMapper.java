@@ -9,7 +9,8 @@ import ru.practicum.shareit.item.dto.UpdateItemRequest;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.user.model.User;
 
-import java.util.Set;
+import java.util.ArrayList;
+import java.util.List;
 
 @NoArgsConstructor(access = AccessLevel.PRIVATE)
 public final class ItemMapper {
@@ -19,15 +20,50 @@ public final class ItemMapper {
         itemDto.setName(item.getName());
         itemDto.setDescription(item.getDescription());
         itemDto.setAvailable(item.getIsAvailable());
+        itemDto.setCommentCount(item.getCommentCount());
+        itemDto.setVersion(item.getVersion());
         return itemDto;
     }
 
-    public static ItemDto mapToDto(Item item, Set<CommentDto> comments) {
+    public static ItemDto mapToDto(ItemShort item) {
+        ItemDto itemDto = new ItemDto();
+        itemDto.setId(item.id());
+        itemDto.setName(item.name());
+        return itemDto;
+    }
+
+    public static ItemDto mapToDto(Item item, List<CommentDto> comments) {
         ItemDto itemDto = mapToDto(item);
         itemDto.setComments(comments);
         return itemDto;
     }
 
+    /**
+     * Builds the item card from the rows of {@link ItemRepository#findDetailById}, keeping the
+     * comments in the order of the rows, newest first.
+     */
+    public static ItemDto mapToDto(List<ItemDetailRow> rows) {
+        ItemDetailRow first = rows.getFirst();
+        ItemDto itemDto = new ItemDto();
+        itemDto.setId(first.id());
+        itemDto.setName(first.name());
+        itemDto.setDescription(first.description());
+        itemDto.setAvailable(first.available());
+        itemDto.setCommentCount(first.commentCount());
+        itemDto.setVersion(first.version());
+        itemDto.setLastBooking(first.lastBooking());
+        itemDto.setNextBooking(first.nextBooking());
+
+        List<CommentDto> comments = new ArrayList<>(rows.size());
+        for (ItemDetailRow row : rows) {
+            if (row.commentId() != null) {
+                comments.add(CommentMapper.toDto(row));
+            }
+        }
+        itemDto.setComments(comments);
+        return itemDto;
+    }
+
     public static Item mapToEntity(CreateItemRequest request, User user) {
         Item item = new Item();
         item.setName(request.getName());
@@ -46,13 +82,20 @@ public final class ItemMapper {
         return item;
     }
 
-    public static Item mapToEntity(UpdateItemRequest request, User user, Long itemId) {
-        Item item = new Item();
-        item.setId(itemId);
-        item.setOwner(user);
-        item.setName(request.getName());
-        item.setDescription(request.getDescription());
-        item.setIsAvailable(request.getAvailable());
-        return item;
+    /**
+     * Copies the fields present in the request onto the item, leaving the others as they are.
+     */
+    public static void applyUpdate(UpdateItemRequest request, Item item) {
+        if (!request.isNameEmpty()) {
+            item.setName(request.getName());
+        }
+
+        if (!request.isDescriptionEmpty()) {
+            item.setDescription(request.getDescription());
+        }
+
+        if (!request.isAvailableEmpty()) {
+            item.setIsAvailable(request.getAvailable());
+        }
     }
 }
@@ -1,10 +1,16 @@
 package ru.practicum.shareit.item;
 
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.user.model.User;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface ItemRepository  extends JpaRepository<Item, Long> {
     List<Item> findByOwner(User user);
@@ -12,19 +18,114 @@ public interface ItemRepository  extends JpaRepository<Item, Long> {
     @Query("""
     select it
     from Item it
-    where (it.name ilike concat('%', ?1, '%') or it.description ilike concat('%', ?2, '%'))
-    and it.isAvailable = ?3
+    where (it.name ilike concat('%', ?1, '%') or it.description ilike concat('%', ?1, '%'))
+    and it.isAvailable = true
+    order by case when it.name ilike concat('%', ?1, '%') then 0 else 1 end, it.id
     """)
-    List<Item> findBySearchString(String name, String description, Boolean isAvailable);
+    List<Item> findAvailableBySearchString(String text, Pageable pageable);
+
+    @Query(value = """
+    select it.*
+    from items it
+    where it.is_available
+    and (it.search_vector @@ plainto_tsquery('simple', ?1)
+        or it."name" ilike concat('%', ?1, '%')
+        or it.description ilike concat('%', ?1, '%'))
+    order by ts_rank(it.search_vector, plainto_tsquery('simple', ?1)) desc,
+        greatest(similarity(it."name", ?1), similarity(it.description, ?1)) desc,
+        it.id
+    """, nativeQuery = true)
+    List<Item> searchAvailableRanked(String text, Pageable pageable);
 
     @Query("""
-    select
-        it.id id,
-        it.name name
+    select new ru.practicum.shareit.item.ItemShort(it.id, it.name)
     from Item it
     where it.id = ?1
     """)
     ItemShort findShort(Long itemId);
 
-    List<Item> findAllByOwner_Id(Long ownerId);
-}
\ No newline at end of file
+    @Query("""
+    select new ru.practicum.shareit.item.ItemAvailabilityShort(it.id, it.isAvailable)
+    from Item it
+    where it.id in ?1
+    """)
+    List<ItemAvailabilityShort> findAvailabilityByIdIn(Collection<Long> itemIds);
+
+    @Query("""
+    select new ru.practicum.shareit.item.ItemVersion(it.version, it.owner.id)
+    from Item it
+    where it.id = ?1
+    """)
+    Optional<ItemVersion> findVersionById(Long itemId);
+
+    /**
+     * Loads the item locked for update with its version bumped, so writes to data embedded in the
+     * item view (comments) change the item's entity tag and go through the second-level cache.
+     */
+    @Lock(LockModeType.PESSIMISTIC_FORCE_INCREMENT)
+    @Query("select it from Item it where it.id = ?1")
+    Optional<Item> findByIdWithVersionIncrement(Long itemId);
+
+    @Query("select it.id from Item it where it.owner.id = ?1")
+    List<Long> findIdsByOwnerId(Long ownerId);
+
+    @Query("""
+    select new ru.practicum.shareit.item.ItemShort(it.id, it.name)
+    from Item it
+    where it.owner.id = ?1
+    """)
+    List<ItemShort> findShortByOwnerId(Long ownerId);
+
+    /**
+     * Loads the items with their requests in one query, instead of one eager request select per item.
+     */
+    @Query("""
+    select it
+    from Item it
+    left join fetch it.request
+    where it.id in ?1
+    """)
+    List<Item> findWithRequestByIdIn(Collection<Long> itemIds);
+
+    /**
+     * The owner's items with their requests, fetched the same way as {@link #findWithRequestByIdIn}.
+     */
+    @Query("""
+    select it
+    from Item it
+    left join fetch it.request
+    where it.owner.id = ?1
+    """)
+    List<Item> findWithRequestByOwnerId(Long ownerId);
+
+    /**
+     * Reads everything the item card shows in one round trip: one row per embedded comment (or a
+     * single row without one), limited to the {@code comments} newest, with the owner-only last and
+     * next booking dates from correlated subqueries that are empty for other users.
+     */
+    @Query("""
+    select new ru.practicum.shareit.item.ItemDetailRow(it.id, it.name, it.description, it.isAvailable, it.version,
+        it.commentCount,
+        (select max(b.end)
+            from Booking b
+            where b.item.id = it.id and it.owner.id = ?2
+                and b.status = ru.practicum.shareit.booking.BookingStatus.APPROVED and b.end <= ?3),
+        (select min(b.start)
+            from Booking b
+            where b.item.id = it.id and it.owner.id = ?2
+                and b.status = ru.practicum.shareit.booking.BookingStatus.APPROVED and b.start > ?3),
+        cm.id, cm.text, cm.authorName, cm.created)
+    from Item it
+    left join (
+        select c.id as id, c.text as text, a.name as authorName, c.created as created
+        from Comment c
+        join c.author a
+        where c.item.id = ?1
+        order by c.created desc, c.id desc
+        limit ?4
+    ) cm on 1 = 1
+    where it.id = ?1
+    order by cm.created desc, cm.id desc
+    """)
+    List<ItemDetailRow> findDetailById(Long itemId, Long userId, LocalDateTime now, int comments);
+}
@@ -0,0 +1,13 @@
+package ru.practicum.shareit.item;
+
+import org.springframework.data.domain.Pageable;
+import ru.practicum.shareit.item.model.Item;
+import java.util.List;
+
+/**
+ * Finds available items whose name or description matches the search text,
+ * most relevant first.
+ */
+public interface ItemSearchEngine {
+    List<Item> search(String text, Pageable pageable);
+}
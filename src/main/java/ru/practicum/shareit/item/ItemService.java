@@ -2,26 +2,63 @@ package ru.practicum.shareit.item;
 
 import ru.practicum.shareit.item.dto.*;
 import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.util.FieldSet;
+import ru.practicum.shareit.util.KeysetPage;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 public interface ItemService {
     ItemDto createItem(CreateItemRequest request, Long userId);
 
-    ItemDto updateItem(UpdateItemRequest request, Long userId, Long itemId);
+    ItemDto updateItem(UpdateItemRequest request, Long userId, Long itemId, Long expectedVersion);
 
     void deleteItem(Long itemId, Long userId);
 
     ItemDto getItemDtoById(Long itemId, Long userId);
 
+    String getItemETag(Long itemId, Long userId);
+
+    /**
+     * Returns the items ordered by id, as {@link #getItemDtoById} would show each of them to the user.
+     */
+    List<ItemDto> getItemDtosByIds(Set<Long> itemIds, Long userId, FieldSet fields);
+
     Item getItemById(Long itemId);
 
-    List<ItemDto> getItemsByUserId(Long userId);
+    /**
+     * Loads the given items with one query; ids without an item are absent from the result.
+     */
+    Map<Long, Item> getItemsByIds(Collection<Long> itemIds);
+
+    /**
+     * Lists the user's items, querying only the data behind the requested fields.
+     */
+    List<ItemDto> getItemsByUserId(Long userId, FieldSet fields);
 
-    List<ItemDto> findItems(String searchString,  Long userId);
+    List<ItemDto> findItems(String searchString, Long userId, int from, int size);
 
     ItemShort getShortItemById(Long itemId);
 
     void validateItem(Long itemId, Long userId);
 
     CommentDto createComment(CreateCommentRequest request, Long itemId, Long userId);
+
+    /**
+     * Lists the item's comments newest first, {@code size} per page, continuing after {@code cursor}.
+     */
+    KeysetPage<CommentDto> getComments(Long itemId, String cursor, int size);
+
+    /**
+     * Busy and free slots of the item within {@code [from, to)}; a {@code from} in the past is moved
+     * up to now, which the returned calendar reports as its start.
+     */
+    ItemAvailabilityDto getItemAvailability(Long itemId, Long userId, LocalDateTime from, LocalDateTime to);
+
+    /**
+     * Tells which items are free for the whole window; like the calendar, it starts no earlier than now.
+     */
+    List<ItemWindowStatusDto> getItemsAvailability(Set<Long> itemIds, Long userId, LocalDateTime from, LocalDateTime to);
 }
@@ -1,20 +1,37 @@
 package ru.practicum.shareit.item;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.ArchivedBookingRepository;
+import ru.practicum.shareit.booking.BookingInterval;
+import ru.practicum.shareit.booking.BookingIntervalIndex;
 import ru.practicum.shareit.booking.BookingRepository;
 import ru.practicum.shareit.booking.BookingStatus;
+import ru.practicum.shareit.booking.CompletedBookingCache;
+import ru.practicum.shareit.booking.ItemBookingDate;
 import ru.practicum.shareit.item.dto.*;
 import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.exception.ValidationException;
 import ru.practicum.shareit.item.model.Comment;
 import ru.practicum.shareit.item.model.Item;
-import ru.practicum.shareit.user.UserMapper;
 import ru.practicum.shareit.user.UserService;
 import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.util.EntityTags;
+import ru.practicum.shareit.util.FieldSet;
+import ru.practicum.shareit.util.IntegrityViolations;
+import ru.practicum.shareit.util.KeysetCursor;
+import ru.practicum.shareit.util.KeysetPage;
+import ru.practicum.shareit.util.OffsetPageable;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -23,47 +40,67 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 @Transactional(readOnly = true)
 public class ItemServiceImpl implements ItemService {
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final int MAX_AVAILABILITY_DAYS = 366;
+    private static final String OWNER_CONSTRAINT = "items_users_fk";
+    /**
+     * Newest comments shown on the item card; the rest are listed by {@link #getComments}.
+     */
+    private static final int EMBEDDED_COMMENTS = 10;
 
     private final ItemRepository itemRepository;
+    private final ItemSearchEngine itemSearchEngine;
     private final CommentRepository commentRepository;
     private final UserService userService;
     private final BookingRepository bookingRepository;
+    private final ArchivedBookingRepository archivedBookingRepository;
+    private final BookingIntervalIndex bookingIntervalIndex;
+    private final CompletedBookingCache completedBookingCache;
+    private final ItemViewCache itemViewCache;
+    private final ApplicationEventPublisher eventPublisher;
 
+    /**
+     * The existence check answers from a node-local cache, so an owner deleted on another node may
+     * still pass it; the insert is flushed here so the foreign key catches that case, and it is
+     * reported as a missing user.
+     */
     @Override
     @Transactional
     public ItemDto createItem(CreateItemRequest request, Long userId) {
         userService.checkUserId(userId);
-        User user = UserMapper.mapToEntity(userService.getUserDtoById(userId));
+        User user = userService.getUserReference(userId);
         Item itemToCreate = ItemMapper.mapToEntity(request, user);
 
-        itemToCreate = itemRepository.save(itemToCreate);
+        try {
+            itemToCreate = itemRepository.saveAndFlush(itemToCreate);
+        } catch (DataIntegrityViolationException e) {
+            if (IntegrityViolations.isViolationOf(e, OWNER_CONSTRAINT)) {
+                throw new NotFoundException("User not found");
+            }
+            throw e;
+        }
         return ItemMapper.mapToDto(itemToCreate);
     }
 
+    /**
+     * Loads the managed item once, checks ownership and version on it and applies only the fields
+     * present in the request; the item is a dynamic-update entity, so the flush writes just the
+     * changed columns, or nothing if no value changed.
+     */
     @Override
     @Transactional
-    public ItemDto updateItem(UpdateItemRequest request, Long userId, Long itemId) {
+    public ItemDto updateItem(UpdateItemRequest request, Long userId, Long itemId, Long expectedVersion) {
         userService.checkUserId(userId);
 
-        ItemDto oldItemData = getItemDtoById(itemId, userId);
-        validateItem(itemId, userId);
-
-        if (request.isNameEmpty()) {
-            request.setName(oldItemData.getName());
-        }
-
-        if (request.isDescriptionEmpty()) {
-            request.setDescription(oldItemData.getDescription());
-        }
-
-        if (request.isAvailableEmpty()) {
-            request.setAvailable(oldItemData.getAvailable());
+        Item item = getItemById(itemId);
+        if (!Objects.equals(item.getOwner().getId(), userId)) {
+            throw new ValidationException("Данная вещь принадлежит другому пользователю");
         }
+        EntityTags.checkVersion(expectedVersion, item.getVersion());
 
-        User user = UserMapper.mapToEntity(userService.getUserDtoById(userId));
-        Item itemToUpdate = ItemMapper.mapToEntity(request, user, itemId);
-        itemToUpdate = itemRepository.save(itemToUpdate);
-        return ItemMapper.mapToDto(itemToUpdate);
+        ItemMapper.applyUpdate(request, item);
+        eventPublisher.publishEvent(ItemChangedEvent.itemChanged(itemId));
+        return ItemMapper.mapToDto(item);
     }
 
     @Override
@@ -72,54 +109,93 @@ public class ItemServiceImpl implements ItemService {
         userService.checkUserId(userId);
         validateItem(itemId, userId);
         itemRepository.deleteById(itemId);
+        // the database cascades the delete to the item's bookings
+        bookingIntervalIndex.invalidateAfterCompletion(itemId);
+        eventPublisher.publishEvent(ItemChangedEvent.itemChanged(itemId));
     }
 
+    /**
+     * Served from {@link ItemViewCache}; the item itself, needed to tell the owner from everyone
+     * else, comes from the second-level cache.
+     */
     @Override
     public ItemDto getItemDtoById(Long itemId, Long userId) {
-        Item item = itemRepository.findById(itemId)
-                    .orElseThrow(() -> new NotFoundException("Item not found"));
-
-        Set<CommentDto> comments = commentRepository.findByItem_Id(itemId).stream()
-                .map(CommentMapper::toDto)
-                .collect(Collectors.toSet());
+        return getItemView(getItemById(itemId), userId);
+    }
 
-        ItemDto itemDto = ItemMapper.mapToDto(item, comments);
+    /**
+     * Everyone sees the item and its comments, which the item version covers. The owner also sees
+     * the last and next booking, which change without touching the item, so their tag includes them.
+     */
+    @Override
+    public String getItemETag(Long itemId, Long userId) {
+        ItemVersion item = itemRepository.findVersionById(itemId)
+                .orElseThrow(() -> new NotFoundException("Item not found"));
 
-        if (item.getOwner().getId().equals(userId)) {
-            itemDto.setLastBooking(bookingRepository.getLastEndDateByItemId(itemId));
-            itemDto.setNextBooking(bookingRepository.getNextStartDateByItemId(itemId));
+        if (!item.ownerId().equals(userId)) {
+            return EntityTags.of(item.version());
         }
-
-        return itemDto;
+        // a cached card has the same dates and is dropped on every change, but a miss must not build one
+        ItemDto itemDto = itemViewCache.getIfPresent(itemId, true);
+        if (itemDto != null) {
+            return EntityTags.of(itemDto.getVersion(), itemDto.getLastBooking(), itemDto.getNextBooking());
+        }
+        LocalDateTime now = LocalDateTime.now();
+        return EntityTags.of(item.version(), bookingRepository.getLastEndDateByItemId(itemId, now),
+                bookingRepository.getNextStartDateByItemId(itemId, now));
     }
 
+    /**
+     * Loads the items with one IN query and their comments and booking dates with one query each,
+     * rather than going through the per-item view cache.
+     */
     @Override
-    public List<ItemDto> getItemsByUserId(Long userId) {
+    public List<ItemDto> getItemDtosByIds(Set<Long> itemIds, Long userId, FieldSet fields) {
         userService.checkUserId(userId);
-        User user = UserMapper.mapToEntity(userService.getUserDtoById(userId));
+        if (itemIds == null || itemIds.isEmpty() || itemIds.size() > MAX_PAGE_SIZE) {
+            throw new ValidationException(
+                    String.format("`ids` must contain between 1 and %d item ids", MAX_PAGE_SIZE));
+        }
 
-        List<Item> items = itemRepository.findAllByOwner_Id(userId);
+        List<Item> items = itemRepository.findWithRequestByIdIn(itemIds);
+        if (items.size() < itemIds.size()) {
+            throw new NotFoundException("Item not found");
+        }
 
-        return items.stream()
-                .map(item -> {
-                    Set<CommentDto> comments = commentRepository.findByItem_Id(item.getId()).stream()
-                            .map(CommentMapper::toDto)
-                            .collect(Collectors.toSet());
+        return toItemDtos(items.stream()
+                .sorted(Comparator.comparing(Item::getId))
+                .toList(), userId, fields);
+    }
 
-                    return ItemMapper.mapToDto(item, comments);
-                })
-                .toList();
+    @Override
+    public List<ItemDto> getItemsByUserId(Long userId, FieldSet fields) {
+        userService.checkUserId(userId);
+        if (fields.containsOnly("id", "name")) {
+            return itemRepository.findShortByOwnerId(userId).stream()
+                    .map(ItemMapper::mapToDto)
+                    .toList();
+        }
+
+        List<Item> items = itemRepository.findWithRequestByOwnerId(userId);
+        if (items.isEmpty()) {
+            return List.of();
+        }
+        return toItemDtos(items, userId, fields);
     }
 
     @Override
-    public List<ItemDto> findItems(String searchString, Long userId) {
+    public List<ItemDto> findItems(String searchString, Long userId, int from, int size) {
         userService.checkUserId(userId);
-        if (searchString == null || searchString.isEmpty()) {
+        if (from < 0 || size < 1 || size > MAX_PAGE_SIZE) {
+            throw new ValidationException(
+                    String.format("`from` must not be negative and `size` must be between 1 and %d", MAX_PAGE_SIZE));
+        }
+
+        if (searchString == null || searchString.isBlank()) {
             return List.of();
         }
 
-        return itemRepository.findBySearchString(
-                searchString, searchString,true).stream()
+        return itemSearchEngine.search(searchString.trim(), new OffsetPageable(from, size)).stream()
                 .map(ItemMapper::mapToDto)
                 .collect(Collectors.toList());
     }
@@ -143,19 +219,181 @@ public class ItemServiceImpl implements ItemService {
                 .orElseThrow(() -> new NotFoundException("Item not found"));
     }
 
+    @Override
+    public Map<Long, Item> getItemsByIds(Collection<Long> itemIds) {
+        return itemRepository.findAllById(itemIds).stream()
+                .collect(Collectors.toMap(Item::getId, item -> item));
+    }
+
     @Override
     @Transactional
     public CommentDto createComment(CreateCommentRequest request, Long itemId, Long userId) {
-        bookingRepository.findByBookerId(userId).stream()
-                .filter(bookingDto -> bookingDto.getItem().id().equals(itemId)
-                        && bookingDto.getStatus().equals(BookingStatus.APPROVED)
-                        && LocalDateTime.now().isAfter(bookingDto.getEnd()))
-                .findAny()
-                .orElseThrow(() -> new ValidationException("Вы не брали данную вещь в аренду"));
+        if (!completedBookingCache.hasCompleted(userId, itemId, () -> hasCompletedBooking(userId, itemId))) {
+            throw new ValidationException("Вы не брали данную вещь в аренду");
+        }
 
-        Item item = itemRepository.findById(itemId).get();
-        User user = UserMapper.mapToEntity(userService.getUserDtoById(userId));
+        Item item = itemRepository.findByIdWithVersionIncrement(itemId)
+                .orElseThrow(() -> new NotFoundException("Item not found"));
+        item.setCommentCount(item.getCommentCount() + 1);
+        User user = userService.getUserById(userId);
         Comment commentToSave = CommentMapper.toEntity(request, user, item);
-        return CommentMapper.toDto(commentRepository.save(commentToSave));
+        CommentDto comment = CommentMapper.toDto(commentRepository.save(commentToSave));
+        eventPublisher.publishEvent(ItemChangedEvent.itemChanged(itemId));
+        return comment;
+    }
+
+    @Override
+    public KeysetPage<CommentDto> getComments(Long itemId, String cursor, int size) {
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new ValidationException(String.format("`size` must be between 1 and %d", MAX_PAGE_SIZE));
+        }
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        getItemById(itemId);
+
+        List<CommentDto> comments = commentRepository.findByItemId(itemId, after.time(), after.id(),
+                        Limit.of(size + 1)).stream()
+                .map(CommentMapper::toDto)
+                .toList();
+        return KeysetPage.of(comments, size, comment -> new KeysetCursor(comment.getCreated(), comment.getId()));
+    }
+
+    @Override
+    public ItemAvailabilityDto getItemAvailability(Long itemId, Long userId, LocalDateTime from, LocalDateTime to) {
+        userService.checkUserId(userId);
+        LocalDateTime start = windowStart(from, to);
+
+        Item item = getItemById(itemId);
+        return ItemAvailabilityMapper.mapToDto(item, start, to,
+                bookingIntervalIndex.findOverlapping(itemId, start, to));
+    }
+
+    @Override
+    public List<ItemWindowStatusDto> getItemsAvailability(Set<Long> itemIds, Long userId,
+                                                          LocalDateTime from, LocalDateTime to) {
+        userService.checkUserId(userId);
+        LocalDateTime start = windowStart(from, to);
+        if (itemIds == null || itemIds.isEmpty() || itemIds.size() > MAX_PAGE_SIZE) {
+            throw new ValidationException(
+                    String.format("`ids` must contain between 1 and %d item ids", MAX_PAGE_SIZE));
+        }
+
+        List<ItemAvailabilityShort> items = itemRepository.findAvailabilityByIdIn(itemIds);
+        if (items.size() < itemIds.size()) {
+            throw new NotFoundException("Item not found");
+        }
+
+        Set<Long> availableIds = items.stream()
+                .filter(ItemAvailabilityShort::available)
+                .map(ItemAvailabilityShort::id)
+                .collect(Collectors.toSet());
+        Set<Long> busyIds = bookingIntervalIndex.findBusyItems(availableIds, start, to);
+        return items.stream()
+                .sorted(Comparator.comparing(ItemAvailabilityShort::id))
+                .map(item -> new ItemWindowStatusDto(item.id(),
+                        availableIds.contains(item.id()) && !busyIds.contains(item.id())))
+                .toList();
+    }
+
+    private boolean hasCompletedBooking(Long userId, Long itemId) {
+        return bookingRepository.existsByBooker_IdAndItem_IdAndStatusAndEndBefore(
+                userId, itemId, BookingStatus.APPROVED, LocalDateTime.now())
+                || archivedBookingRepository.existsByBooker_IdAndItem_IdAndStatus(
+                userId, itemId, BookingStatus.APPROVED);
+    }
+
+    private ItemDto getItemView(Item item, Long userId) {
+        boolean owner = item.getOwner().getId().equals(userId);
+        return itemViewCache.get(item.getId(), owner, () -> loadItemView(item.getId(), userId, owner));
+    }
+
+    /**
+     * The owner's card goes stale when the current booking ends or the next one starts, as both
+     * move the last and next booking dates.
+     */
+    private ItemViewCache.View loadItemView(Long itemId, Long userId, boolean owner) {
+        LocalDateTime now = LocalDateTime.now();
+        List<ItemDetailRow> rows = itemRepository.findDetailById(itemId, userId, now, EMBEDDED_COMMENTS);
+        if (rows.isEmpty()) {
+            throw new NotFoundException("Item not found");
+        }
+
+        ItemDto itemDto = ItemMapper.mapToDto(rows);
+        if (!owner) {
+            return new ItemViewCache.View(itemDto, null);
+        }
+
+        LocalDateTime validUntil = bookingIntervalIndex.findOverlapping(itemId, now, now.plusNanos(1)).stream()
+                .filter(booking -> booking.status() == BookingStatus.APPROVED)
+                .map(BookingInterval::end)
+                .findFirst()
+                .orElse(itemDto.getNextBooking());
+        return new ItemViewCache.View(itemDto, validUntil);
+    }
+
+    /**
+     * Maps the items with their newest comments; the last and next booking are filled in only for
+     * the items the user owns. Comments and booking dates are read only if they were requested.
+     */
+    private List<ItemDto> toItemDtos(List<Item> items, Long userId, FieldSet fields) {
+        List<Long> itemIds = items.stream()
+                .map(Item::getId)
+                .toList();
+        List<Long> ownedIds = items.stream()
+                .filter(item -> item.getOwner().getId().equals(userId))
+                .map(Item::getId)
+                .toList();
+
+        Map<Long, List<CommentDto>> comments = Map.of();
+        if (fields.contains("comments")) {
+            comments = commentRepository.findNewestByItemIdIn(itemIds, EMBEDDED_COMMENTS).stream()
+                    .collect(Collectors.groupingBy(ItemComment::itemId,
+                            Collectors.mapping(CommentMapper::toDto, Collectors.toList())));
+        }
+        LocalDateTime now = LocalDateTime.now();
+        Map<Long, LocalDateTime> lastBookings = Map.of();
+        if (!ownedIds.isEmpty() && fields.contains("lastBooking")) {
+            lastBookings = toDateMap(bookingRepository.getLastEndDatesByItemIds(ownedIds, now));
+        }
+        Map<Long, LocalDateTime> nextBookings = Map.of();
+        if (!ownedIds.isEmpty() && fields.contains("nextBooking")) {
+            nextBookings = toDateMap(bookingRepository.getNextStartDatesByItemIds(ownedIds, now));
+        }
+
+        List<ItemDto> itemDtos = new ArrayList<>(items.size());
+        for (Item item : items) {
+            ItemDto itemDto = ItemMapper.mapToDto(item, fields.contains("comments")
+                    ? comments.getOrDefault(item.getId(), List.of())
+                    : null);
+            itemDto.setLastBooking(lastBookings.get(item.getId()));
+            itemDto.setNextBooking(nextBookings.get(item.getId()));
+            itemDtos.add(itemDto);
+        }
+        return itemDtos;
+    }
+
+    /**
+     * Checks the window and returns its start, moved up to now if it lies in the past: the interval
+     * index keeps only bookings that have not ended, so it cannot tell what was busy before now.
+     */
+    private static LocalDateTime windowStart(LocalDateTime from, LocalDateTime to) {
+        if (from == null || to == null || !from.isBefore(to)) {
+            throw new ValidationException("`from` must be before `to`");
+        }
+
+        if (from.plusDays(MAX_AVAILABILITY_DAYS).isBefore(to)) {
+            throw new ValidationException(
+                    String.format("Availability can be requested for at most %d days", MAX_AVAILABILITY_DAYS));
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        if (!now.isBefore(to)) {
+            throw new ValidationException("`to` must be in the future");
+        }
+        return from.isBefore(now) ? now : from;
+    }
+
+    private static Map<Long, LocalDateTime> toDateMap(List<ItemBookingDate> dates) {
+        return dates.stream()
+                .collect(Collectors.toMap(ItemBookingDate::itemId, ItemBookingDate::date));
     }
 }
@@ -0,0 +1,4 @@
+package ru.practicum.shareit.item;
+
+public record ItemVersion(Long version, Long ownerId) {
+}
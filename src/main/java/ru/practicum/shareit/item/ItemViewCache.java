@@ -0,0 +1,107 @@
+package ru.practicum.shareit.item;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.practicum.shareit.item.dto.ItemDto;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Assembled item cards, kept apart for the owner, who also sees the last and next booking, and for
+ * everyone else. Entries are dropped on every {@link ItemChangedEvent}, and owner cards also once
+ * their last or next booking moves on with time. Hits and misses are published as {@code cache.*}
+ * meters tagged {@code cache=itemViews}.
+ *
+ * <p>Cached cards are shared between requests and must not be modified.
+ */
+@Component
+public class ItemViewCache {
+    static final String CACHE_NAME = "itemViews";
+
+    private final Cache<Key, View> views;
+
+    public ItemViewCache(@Value("${shareit.items.view-cache.size:10000}") long maximumSize,
+                         @Value("${shareit.items.view-cache.ttl:PT10M}") Duration ttl,
+                         MeterRegistry meterRegistry) {
+        views = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new Expiry<Key, View>() {
+                    @Override
+                    public long expireAfterCreate(Key key, View view, long currentTime) {
+                        LocalDateTime now = LocalDateTime.now();
+                        if (view.validUntil() == null || view.validUntil().isAfter(now.plus(ttl))) {
+                            return ttl.toNanos();
+                        }
+                        return Math.max(0, Duration.between(now, view.validUntil()).toNanos());
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(Key key, View view, long currentTime, long currentDuration) {
+                        return expireAfterCreate(key, view, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(Key key, View view, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, views, CACHE_NAME);
+    }
+
+    /**
+     * Returns the cached card or builds it with {@code loader}. A change published while the card is
+     * being built waits for it and then drops it, so a card read before a commit never outlives it.
+     */
+    public ItemDto get(Long itemId, boolean owner, Supplier<View> loader) {
+        return views.get(new Key(itemId, owner), key -> loader.get()).item();
+    }
+
+    /**
+     * Returns the cached card, or {@code null} without building it.
+     */
+    public ItemDto getIfPresent(Long itemId, boolean owner) {
+        View view = views.getIfPresent(new Key(itemId, owner));
+        return view == null ? null : view.item();
+    }
+
+    /**
+     * Drops the cards right away, so later reads in the changing transaction see the change, and
+     * again once it completes, dropping what other requests read before the commit.
+     */
+    @EventListener
+    public void onItemChanged(ItemChangedEvent event) {
+        views.invalidateAll(keys(event));
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMPLETION)
+    public void afterItemChanged(ItemChangedEvent event) {
+        views.invalidateAll(keys(event));
+    }
+
+    private static List<Key> keys(ItemChangedEvent event) {
+        return event.ownerViewOnly()
+                ? List.of(new Key(event.itemId(), true))
+                : List.of(new Key(event.itemId(), true), new Key(event.itemId(), false));
+    }
+
+    /**
+     * @param validUntil when the card goes stale by itself, or {@code null} if only changes make it stale
+     */
+    public record View(ItemDto item, LocalDateTime validUntil) {
+    }
+
+    private record Key(Long itemId, boolean owner) {
+    }
+}
@@ -0,0 +1,15 @@
+package ru.practicum.shareit.item.dto;
+
+import lombok.Data;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+public class ItemAvailabilityDto {
+    private Long itemId;
+    private Boolean available;
+    private LocalDateTime from;
+    private LocalDateTime to;
+    private List<TimeSlotDto> busy;
+    private List<TimeSlotDto> free;
+}
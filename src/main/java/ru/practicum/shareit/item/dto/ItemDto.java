@@ -1,10 +1,14 @@
 package ru.practicum.shareit.item.dto;
 
+import com.fasterxml.jackson.annotation.JsonFilter;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Data;
+import ru.practicum.shareit.util.FieldSet;
 import java.time.LocalDateTime;
-import java.util.Set;
+import java.util.List;
 
 @Data
+@JsonFilter(FieldSet.FILTER)
 public class ItemDto {
     private Long id;
     private String name;
@@ -12,5 +16,9 @@ public class ItemDto {
     private Boolean available;
     private LocalDateTime lastBooking;
     private LocalDateTime nextBooking;
-    private Set<CommentDto> comments;
+    private List<CommentDto> comments;
+    private Integer commentCount;
+
+    @JsonIgnore
+    private Long version;
 }
@@ -2,13 +2,17 @@ package ru.practicum.shareit.user;
 
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import ru.practicum.shareit.user.dto.CreateUserRequest;
 import ru.practicum.shareit.user.dto.UpdateUserRequest;
 import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.util.EntityTags;
 import java.util.List;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/users")
@@ -24,8 +28,9 @@ public class UserController {
 
     @PatchMapping("/{user-id}")
     @ResponseStatus(HttpStatus.OK)
-    public UserDto update(@Valid @RequestBody UpdateUserRequest request, @PathVariable("user-id") Long userId) {
-        return userService.updateUser(request, userId);
+    public UserDto update(@Valid @RequestBody UpdateUserRequest request, @PathVariable("user-id") Long userId,
+                          @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        return userService.updateUser(request, userId, EntityTags.parseVersion(ifMatch));
     }
 
     @DeleteMapping("/{user-id}")
@@ -35,8 +40,10 @@ public class UserController {
     }
 
     @GetMapping("/{user-id}")
-    @ResponseStatus(HttpStatus.OK)
-    public UserDto getUserById(@PathVariable("user-id") Long userId) {
+    public UserDto getUserById(@PathVariable("user-id") Long userId, WebRequest webRequest) {
+        if (webRequest.checkNotModified(userService.getUserETag(userId))) {
+            return null;
+        }
         return userService.getUserDtoById(userId);
     }
 
@@ -45,4 +52,10 @@ public class UserController {
     public List<UserDto> getAllUsers() {
         return userService.getAllUsers();
     }
+
+    @GetMapping(params = "ids")
+    @ResponseStatus(HttpStatus.OK)
+    public List<UserDto> getUsersByIds(@RequestParam("ids") Set<Long> userIds) {
+        return userService.getUsersByIds(userIds);
+    }
 }
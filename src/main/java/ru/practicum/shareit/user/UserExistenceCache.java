@@ -0,0 +1,84 @@
+package ru.practicum.shareit.user;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import java.time.Duration;
+import java.util.function.Predicate;
+
+/**
+ * Remembers which user ids exist, so resolving the X-Sharer-User-Id header rarely hits the database.
+ * Unknown ids are cached too, for a shorter time, so repeated requests with a bad id stay cheap.
+ * <p>
+ * The cache is node-local: a delete evicts the id only on the node that ran it, so other nodes keep
+ * answering from their entry until it expires. Known ids are therefore kept for just a minute, and
+ * writes that reference the user report the foreign key violation of a user deleted meanwhile as not found.
+ */
+@Component
+public class UserExistenceCache {
+    private final Cache<Long, Boolean> users;
+
+    public UserExistenceCache(@Value("${shareit.users.existence-cache.size:100000}") long maximumSize,
+                              @Value("${shareit.users.existence-cache.ttl:PT1M}") Duration ttl,
+                              @Value("${shareit.users.existence-cache.negative-ttl:PT30S}") Duration negativeTtl) {
+        users = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new Expiry<Long, Boolean>() {
+                    @Override
+                    public long expireAfterCreate(Long userId, Boolean exists, long currentTime) {
+                        return (exists ? ttl : negativeTtl).toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(Long userId, Boolean exists, long currentTime,
+                                                  long currentDuration) {
+                        return expireAfterCreate(userId, exists, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(Long userId, Boolean exists, long currentTime,
+                                                long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+    }
+
+    public boolean exists(Long userId, Predicate<Long> loader) {
+        return users.get(userId, loader::test);
+    }
+
+    /**
+     * Records a new user once the creating transaction commits; until then other requests cannot see it.
+     */
+    public void userCreated(Long userId) {
+        afterCommit(() -> users.put(userId, true));
+    }
+
+    /**
+     * Forgets the user now and again after commit, so a lookup racing with the delete cannot leave
+     * a stale positive entry behind.
+     */
+    public void userDeleted(Long userId) {
+        users.invalidate(userId);
+        afterCommit(() -> users.invalidate(userId));
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -14,6 +14,7 @@ public final class UserMapper {
         userDto.setId(user.getId());
         userDto.setName(user.getName());
         userDto.setEmail(user.getEmail());
+        userDto.setVersion(user.getVersion());
         return userDto;
     }
 
@@ -22,6 +23,7 @@ public final class UserMapper {
         user.setId(userDto.getId());
         user.setName(userDto.getName());
         user.setEmail(userDto.getEmail());
+        user.setVersion(userDto.getVersion());
         return user;
     }
 
@@ -32,9 +34,10 @@ public final class UserMapper {
         return user;
     }
 
-    public static User mapToEntity(UpdateUserRequest request, Long userId) {
-        User user = new User();
-        user.setId(userId);
+    /**
+     * Copies the fields present in the request onto the user, leaving the others as they are.
+     */
+    public static void applyUpdate(UpdateUserRequest request, User user) {
         if (!request.isNameEmpty()) {
             user.setName(request.getName());
         }
@@ -42,6 +45,5 @@ public final class UserMapper {
         if (!request.isEmailEmpty()) {
             user.setEmail(request.getEmail());
         }
-        return user;
     }
 }
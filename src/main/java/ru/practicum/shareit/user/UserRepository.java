@@ -1,10 +1,15 @@
 package ru.practicum.shareit.user;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 import ru.practicum.shareit.user.model.User;
+import java.util.Optional;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
 
+    @Query("select u.version from User u where u.id = ?1")
+    Optional<Long> findVersionById(Long userId);
+
 }
\ No newline at end of file
@@ -5,19 +5,32 @@ import ru.practicum.shareit.user.dto.UpdateUserRequest;
 import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.model.User;
 import java.util.List;
+import java.util.Set;
 
 public interface UserService {
     UserDto createUser(CreateUserRequest request);
 
-    UserDto updateUser(UpdateUserRequest request, Long userId);
+    UserDto updateUser(UpdateUserRequest request, Long userId, Long expectedVersion);
 
     void deleteUser(Long id);
 
     UserDto getUserDtoById(Long id);
 
+    String getUserETag(Long id);
+
     List<UserDto> getAllUsers();
 
+    /**
+     * Returns the users ordered by id; fails if any of them does not exist.
+     */
+    List<UserDto> getUsersByIds(Set<Long> userIds);
+
     void checkUserId(Long userId);
 
     User getUserById(Long userId);
+
+    /**
+     * Returns a lazy reference for use as an association; the caller must have checked that the user exists.
+     */
+    User getUserReference(Long userId);
 }
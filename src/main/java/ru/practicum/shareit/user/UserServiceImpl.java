@@ -1,52 +1,107 @@
 package ru.practicum.shareit.user;
 
+import jakarta.persistence.EntityManagerFactory;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import ru.practicum.shareit.booking.BookingIntervalIndex;
+import ru.practicum.shareit.booking.BookingRepository;
 import ru.practicum.shareit.exception.ValidationException;
+import ru.practicum.shareit.item.CommentRepository;
+import ru.practicum.shareit.item.ItemChangedEvent;
+import ru.practicum.shareit.item.ItemCommentCount;
+import ru.practicum.shareit.item.ItemRepository;
+import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.user.dto.CreateUserRequest;
 import ru.practicum.shareit.user.dto.UpdateUserRequest;
 import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.util.EntityTags;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 @Transactional(readOnly = true)
 public class UserServiceImpl implements UserService {
+    private static final int MAX_IDS = 100;
+    private static final String CHECKED_USER_ATTRIBUTE = UserServiceImpl.class.getName() + ".checkedUserId";
 
     private final UserRepository userRepository;
+    private final UserExistenceCache userExistenceCache;
+    private final EntityManagerFactory entityManagerFactory;
+    private final ItemRepository itemRepository;
+    private final CommentRepository commentRepository;
+    private final BookingRepository bookingRepository;
+    private final BookingIntervalIndex bookingIntervalIndex;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Override
     @Transactional
     public UserDto createUser(CreateUserRequest request) {
         User createdUser = userRepository.save(UserMapper.mapToEntity(request));
+        userExistenceCache.userCreated(createdUser.getId());
         return UserMapper.mapToDto(createdUser);
     }
 
+    /**
+     * Applies the fields present in the request to the managed user; as a dynamic-update entity it
+     * is written with just the changed columns.
+     */
     @Override
     @Transactional
-    public UserDto updateUser(UpdateUserRequest request, Long userId) {
-        UserDto oldUserData = getUserDtoById(userId);
-        if (request.isNameEmpty()) {
-            request.setName(oldUserData.getName());
-        }
+    public UserDto updateUser(UpdateUserRequest request, Long userId, Long expectedVersion) {
+        User user = getUserById(userId);
+        EntityTags.checkVersion(expectedVersion, user.getVersion());
 
-        if (request.isEmailEmpty()) {
-            request.setEmail(oldUserData.getEmail());
-        }
-        User userToUpdate = UserMapper.mapToEntity(request, userId);
-        userToUpdate = userRepository.save(userToUpdate);
-        return UserMapper.mapToDto(userToUpdate);
+        UserMapper.applyUpdate(request, user);
+        return UserMapper.mapToDto(user);
     }
 
     @Override
     @Transactional
     public void deleteUser(Long id) {
         User userToDelete = UserMapper.mapToEntity(getUserDtoById(id));
+        // the database cascades the delete to the user's items and bookings, so their items' booking
+        // intervals are dropped from the index too
+        List<Long> bookedItemIds = bookingRepository.findItemIdsByBookerIdAndStatusIn(id,
+                BookingIntervalIndex.ACTIVE_STATUSES);
+        List<Long> ownedItemIds = itemRepository.findIdsByOwnerId(id);
+        // it cascades to the user's comments too, so the items they were left on lose them from their
+        // count and get a new version, as createComment gives them; locked in id order
+        List<ItemCommentCount> commentedItems = commentRepository.countByAuthorIdGroupByItemId(id);
+        commentedItems.forEach(commented -> itemRepository.findByIdWithVersionIncrement(commented.itemId())
+                .ifPresent(item -> item.setCommentCount(item.getCommentCount() - (int) commented.count())));
         userRepository.delete(userToDelete);
+        bookedItemIds.forEach(bookingIntervalIndex::invalidateAfterCompletion);
+        ownedItemIds.forEach(bookingIntervalIndex::invalidateAfterCompletion);
+        userExistenceCache.userDeleted(id);
+        bookedItemIds.forEach(itemId -> eventPublisher.publishEvent(ItemChangedEvent.bookingsChanged(itemId)));
+        ownedItemIds.forEach(itemId -> eventPublisher.publishEvent(ItemChangedEvent.itemChanged(itemId)));
+        commentedItems.forEach(commented ->
+                eventPublisher.publishEvent(ItemChangedEvent.itemChanged(commented.itemId())));
+
+        // the database cascades the delete to the user's items, behind the second-level cache
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                ownedItemIds.forEach(itemId -> entityManagerFactory.getCache().evict(Item.class, itemId));
+            }
+        });
+
+        RequestAttributes request = RequestContextHolder.getRequestAttributes();
+        if (request != null
+                && id.equals(request.getAttribute(CHECKED_USER_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST))) {
+            request.removeAttribute(CHECKED_USER_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        }
     }
 
     @Override
@@ -56,6 +111,13 @@ public class UserServiceImpl implements UserService {
                 .orElseThrow(() -> new NotFoundException("User not found"));
     }
 
+    @Override
+    public String getUserETag(Long id) {
+        return userRepository.findVersionById(id)
+                .map(EntityTags::of)
+                .orElseThrow(() -> new NotFoundException("User not found"));
+    }
+
     @Override
     public List<UserDto> getAllUsers() {
         return userRepository.findAll().stream()
@@ -63,12 +125,43 @@ public class UserServiceImpl implements UserService {
                 .collect(Collectors.toList());
     }
 
+    @Override
+    public List<UserDto> getUsersByIds(Set<Long> userIds) {
+        if (userIds == null || userIds.isEmpty() || userIds.size() > MAX_IDS) {
+            throw new ValidationException(String.format("`ids` must contain between 1 and %d user ids", MAX_IDS));
+        }
+
+        List<User> users = userRepository.findAllById(userIds);
+        if (users.size() < userIds.size()) {
+            throw new NotFoundException("User not found");
+        }
+        return users.stream()
+                .sorted(Comparator.comparing(User::getId))
+                .map(UserMapper::mapToDto)
+                .toList();
+    }
+
+    /**
+     * Resolves the X-Sharer-User-Id principal at most once per HTTP request, normally from the existence cache.
+     */
     @Override
     public void checkUserId(Long userId) {
         if (userId == null) {
             throw new ValidationException("X-Sharer-User-Id is null");
-        } else {
-            getUserDtoById(userId);
+        }
+
+        RequestAttributes request = RequestContextHolder.getRequestAttributes();
+        if (request != null
+                && userId.equals(request.getAttribute(CHECKED_USER_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST))) {
+            return;
+        }
+
+        if (!userExistenceCache.exists(userId, userRepository::existsById)) {
+            throw new NotFoundException("User not found");
+        }
+
+        if (request != null) {
+            request.setAttribute(CHECKED_USER_ATTRIBUTE, userId, RequestAttributes.SCOPE_REQUEST);
         }
     }
 
@@ -77,4 +170,9 @@ public class UserServiceImpl implements UserService {
         return userRepository.findById(userId)
                 .orElseThrow(() -> new NotFoundException("User not found"));
     }
+
+    @Override
+    public User getUserReference(Long userId) {
+        return userRepository.getReferenceById(userId);
+    }
 }
@@ -1,5 +1,6 @@
 package ru.practicum.shareit.user.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Data;
 
 @Data
@@ -7,4 +8,7 @@ public class UserDto {
     private Long id;
     private String name;
     private String email;
+
+    @JsonIgnore
+    private Long version;
 }
@@ -2,15 +2,23 @@ package ru.practicum.shareit.user.model;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.DynamicUpdate;
+import ru.practicum.shareit.config.HibernateCacheConfig;
 
 @Getter
 @Setter
 @RequiredArgsConstructor
 @Entity
 @Table(name = "users")
+@DynamicUpdate
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = HibernateCacheConfig.USERS_REGION)
 public class User {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "users_seq")
+    @SequenceGenerator(name = "users_seq", sequenceName = "users_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -18,4 +26,7 @@ public class User {
 
     @Column(nullable = false, unique = true)
     private String email;
+
+    @Version
+    private Long version;
 }
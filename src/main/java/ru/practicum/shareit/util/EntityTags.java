@@ -0,0 +1,55 @@
+package ru.practicum.shareit.util;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import ru.practicum.shareit.exception.PreconditionFailedException;
+import ru.practicum.shareit.exception.ValidationException;
+import java.util.Objects;
+
+/**
+ * Strong entity tags of the form {@code "<version>"} or {@code "<version>.<hash>"}, where the
+ * version is the entity's own {@code @Version} and the hash covers other data the response embeds.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class EntityTags {
+
+    public static String of(Long version, Object... embedded) {
+        String tag = String.valueOf(version);
+        if (embedded.length > 0) {
+            tag += "." + Integer.toHexString(Objects.hash(embedded));
+        }
+        return "\"" + tag + "\"";
+    }
+
+    /**
+     * Returns the entity version an If-Match header requires, or {@code null} when it sets no precondition.
+     */
+    public static Long parseVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+
+        String tag = ifMatch.trim();
+        if (tag.startsWith("W/")) {
+            throw new PreconditionFailedException("If-Match requires a strong entity tag");
+        }
+
+        if (tag.length() < 3 || !tag.startsWith("\"") || !tag.endsWith("\"")) {
+            throw new ValidationException("Передан некорректный заголовок If-Match");
+        }
+
+        String value = tag.substring(1, tag.length() - 1);
+        int separator = value.indexOf('.');
+        try {
+            return Long.parseLong(separator < 0 ? value : value.substring(0, separator));
+        } catch (NumberFormatException e) {
+            throw new ValidationException("Передан некорректный заголовок If-Match");
+        }
+    }
+
+    public static void checkVersion(Long expectedVersion, Long actualVersion) {
+        if (expectedVersion != null && !expectedVersion.equals(actualVersion)) {
+            throw new PreconditionFailedException("Object has been modified");
+        }
+    }
+}
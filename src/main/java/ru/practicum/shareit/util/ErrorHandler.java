@@ -1,5 +1,6 @@
 package ru.practicum.shareit.util;
 
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.validation.BindException;
 import org.springframework.web.bind.MissingRequestHeaderException;
@@ -7,6 +8,7 @@ import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.exception.PreconditionFailedException;
 import ru.practicum.shareit.exception.ValidationException;
 
 @RestControllerAdvice
@@ -24,6 +26,18 @@ public class ErrorHandler {
         return new ErrorResponse("Ошибка валидации", ve.getMessage());
     }
 
+    @ExceptionHandler
+    @ResponseStatus(HttpStatus.PRECONDITION_FAILED)
+    public ErrorResponse handlePreconditionFailed(final PreconditionFailedException pfe) {
+        return new ErrorResponse("Объект был изменён", pfe.getMessage());
+    }
+
+    @ExceptionHandler
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public ErrorResponse handleOptimisticLockingFailure(final OptimisticLockingFailureException e) {
+        return new ErrorResponse("Объект был изменён другим запросом", e.getMessage());
+    }
+
     @ExceptionHandler
     @ResponseStatus(HttpStatus.INTERNAL_SERVER_ERROR)
     public ErrorResponse handleCommonException(final RuntimeException e) {
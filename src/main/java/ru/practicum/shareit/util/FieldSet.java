@@ -0,0 +1,76 @@
+package ru.practicum.shareit.util;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import org.springframework.http.converter.json.MappingJacksonValue;
+import ru.practicum.shareit.exception.ValidationException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Top-level response fields requested with the {@code fields} parameter. Services check it to skip
+ * queries for fields nobody asked for, and {@link #filter} leaves the others out of the JSON of
+ * DTOs annotated with {@code @JsonFilter(FieldSet.FILTER)}.
+ */
+public final class FieldSet {
+    public static final String FILTER = "fields";
+    public static final FieldSet ALL = new FieldSet(null);
+
+    /**
+     * Requested field names, or {@code null} for all fields.
+     */
+    private final Set<String> names;
+
+    private FieldSet(Set<String> names) {
+        this.names = names;
+    }
+
+    /**
+     * Parses a comma-separated list of {@code dtoType}'s serialized fields; a missing or blank
+     * parameter selects all of them.
+     */
+    public static FieldSet parse(String fields, Class<?> dtoType) {
+        if (fields == null || fields.isBlank()) {
+            return ALL;
+        }
+
+        Set<String> allowed = Arrays.stream(dtoType.getDeclaredFields())
+                .filter(field -> !Modifier.isStatic(field.getModifiers()))
+                .filter(field -> !field.isAnnotationPresent(JsonIgnore.class))
+                .map(Field::getName)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        Set<String> names = Arrays.stream(fields.split(","))
+                .map(String::trim)
+                .filter(name -> !name.isEmpty())
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        if (names.isEmpty() || !allowed.containsAll(names)) {
+            throw new ValidationException(String.format(
+                    "Передан некорректный параметр fields. Допустимые значения:%s", allowed));
+        }
+        return new FieldSet(names);
+    }
+
+    public boolean contains(String name) {
+        return names == null || names.contains(name);
+    }
+
+    /**
+     * Tells whether nothing but the given fields was requested.
+     */
+    public boolean containsOnly(String... allowed) {
+        return names != null && Set.of(allowed).containsAll(names);
+    }
+
+    public MappingJacksonValue filter(Object body) {
+        MappingJacksonValue value = new MappingJacksonValue(body);
+        value.setFilters(new SimpleFilterProvider().addFilter(FILTER, names == null
+                ? SimpleBeanPropertyFilter.serializeAll()
+                : SimpleBeanPropertyFilter.filterOutAllExcept(names)));
+        return value;
+    }
+}
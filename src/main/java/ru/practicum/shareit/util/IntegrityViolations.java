@@ -0,0 +1,41 @@
+package ru.practicum.shareit.util;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
+import java.sql.SQLException;
+import java.util.regex.Pattern;
+
+/**
+ * Tells which database constraint a failed write violated, so a service can report the expected
+ * ones as client errors. Entities name their constraints explicitly, so the names match on every database.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class IntegrityViolations {
+
+    public static boolean isViolationOf(DataIntegrityViolationException e, String constraintName) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException violation
+                    && (constraintName.equalsIgnoreCase(violation.getConstraintName())
+                    || mentions(violation.getSQLException(), constraintName))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Fallback for batched writes, where the name Hibernate extracts from the driver's batch
+     * message is not reliable (H2 loses its first character); the driver's own exceptions name it intact.
+     */
+    private static boolean mentions(SQLException e, String constraintName) {
+        Pattern name = Pattern.compile("\\b" + Pattern.quote(constraintName) + "\\b", Pattern.CASE_INSENSITIVE);
+        for (SQLException next = e; next != null; next = next.getNextException()) {
+            if (next.getMessage() != null && name.matcher(next.getMessage()).find()) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,40 @@
+package ru.practicum.shareit.util;
+
+import ru.practicum.shareit.exception.ValidationException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Keyset position in a listing ordered by {@code <time> desc, id desc}, such as bookings by start or
+ * comments by creation. Serialized to clients as an opaque URL-safe token.
+ */
+public record KeysetCursor(LocalDateTime time, Long id) {
+    private static final String SEPARATOR = "|";
+
+    /**
+     * Position before the first row of any listing.
+     */
+    public static final KeysetCursor FIRST = new KeysetCursor(LocalDateTime.of(9999, 12, 31, 23, 59, 59), Long.MAX_VALUE);
+
+    public static KeysetCursor decode(String token) {
+        if (token == null || token.isBlank()) {
+            return FIRST;
+        }
+
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = value.lastIndexOf(SEPARATOR);
+            return new KeysetCursor(LocalDateTime.parse(value.substring(0, separator)),
+                    Long.parseLong(value.substring(separator + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new ValidationException("Передан некорректный параметр cursor");
+        }
+    }
+
+    public String encode() {
+        String value = time + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,22 @@
+package ru.practicum.shareit.util;
+
+import java.util.List;
+import java.util.function.Function;
+
+public record KeysetPage<T>(List<T> rows, String nextCursor) {
+
+    /**
+     * Builds a page from a result fetched with {@code size + 1} rows: the extra row only
+     * signals that another page exists and is not returned.
+     *
+     * @param position keyset position of a row, the last returned one becoming the next cursor
+     */
+    public static <T> KeysetPage<T> of(List<T> rows, int size, Function<T, KeysetCursor> position) {
+        if (rows.size() <= size) {
+            return new KeysetPage<>(rows, null);
+        }
+
+        List<T> page = rows.subList(0, size);
+        return new KeysetPage<>(page, position.apply(page.getLast()).encode());
+    }
+}
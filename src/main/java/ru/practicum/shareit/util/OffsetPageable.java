@@ -0,0 +1,66 @@
+package ru.practicum.shareit.util;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+/**
+ * Unsorted page that starts at an exact row offset rather than at a multiple of its size, for the
+ * {@code from}/{@code size} parameters of list endpoints. {@link org.springframework.data.domain.PageRequest}
+ * would round {@code from} down to a page boundary.
+ */
+public record OffsetPageable(long offset, int size) implements Pageable {
+
+    public OffsetPageable {
+        if (offset < 0) {
+            throw new IllegalArgumentException("Offset must not be negative");
+        }
+        if (size < 1) {
+            throw new IllegalArgumentException("Size must be positive");
+        }
+    }
+
+    @Override
+    public int getPageNumber() {
+        return (int) (offset / size);
+    }
+
+    @Override
+    public int getPageSize() {
+        return size;
+    }
+
+    @Override
+    public long getOffset() {
+        return offset;
+    }
+
+    @Override
+    public Sort getSort() {
+        return Sort.unsorted();
+    }
+
+    @Override
+    public Pageable next() {
+        return new OffsetPageable(offset + size, size);
+    }
+
+    @Override
+    public Pageable previousOrFirst() {
+        return hasPrevious() ? new OffsetPageable(Math.max(0, offset - size), size) : first();
+    }
+
+    @Override
+    public Pageable first() {
+        return new OffsetPageable(0, size);
+    }
+
+    @Override
+    public Pageable withPage(int pageNumber) {
+        return new OffsetPageable((long) pageNumber * size, size);
+    }
+
+    @Override
+    public boolean hasPrevious() {
+        return offset > 0;
+    }
+}
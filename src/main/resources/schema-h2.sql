@@ -0,0 +1,26 @@
+CREATE INDEX IF NOT EXISTS items_owner_idx ON public.items (owner_id);
+
+CREATE INDEX IF NOT EXISTS bookings_booker_start_idx ON public.bookings (booker_id, start_date DESC, id DESC);
+CREATE INDEX IF NOT EXISTS bookings_booker_status_start_idx ON public.bookings (booker_id, status, start_date DESC, id DESC);
+CREATE INDEX IF NOT EXISTS bookings_booker_phase_start_idx ON public.bookings (booker_id, phase, start_date DESC, id DESC);
+CREATE INDEX IF NOT EXISTS bookings_status_id_idx ON public.bookings (status, id);
+CREATE INDEX IF NOT EXISTS bookings_phase_start_idx ON public.bookings (phase, start_date);
+CREATE INDEX IF NOT EXISTS bookings_phase_end_idx ON public.bookings (phase, end_date);
+CREATE INDEX IF NOT EXISTS bookings_item_start_idx ON public.bookings (item_id, start_date DESC, id DESC);
+CREATE INDEX IF NOT EXISTS bookings_item_end_idx ON public.bookings (item_id, end_date);
+CREATE INDEX IF NOT EXISTS bookings_booker_item_status_end_idx ON public.bookings (booker_id, item_id, status, end_date);
+
+CREATE TABLE IF NOT EXISTS public.bookings_archive
+(
+    id         bigint                      NOT NULL,
+    start_date timestamp without time zone NOT NULL,
+    end_date   timestamp without time zone NOT NULL,
+    item_id    bigint                      NOT NULL,
+    booker_id  bigint                      NOT NULL,
+    status     int                         NOT NULL,
+    version    bigint                      NOT NULL,
+    CONSTRAINT bookings_archive_pk PRIMARY KEY (id)
+);
+
+CREATE INDEX IF NOT EXISTS bookings_archive_booker_start_idx ON public.bookings_archive (booker_id, start_date DESC, id DESC);
+CREATE INDEX IF NOT EXISTS bookings_archive_item_start_idx ON public.bookings_archive (item_id, start_date DESC, id DESC);
@@ -0,0 +1,96 @@
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+-- Move the id sequences past rows inserted through the identity columns. Never moves them back:
+-- blocks already handed out to running nodes must stay reserved.
+SELECT setval('public.users_seq', GREATEST((SELECT COALESCE(MAX(id), 0) FROM public.users) + 50, (SELECT last_value FROM public.users_seq)));
+SELECT setval('public.requests_seq', GREATEST((SELECT COALESCE(MAX(id), 0) FROM public.requests) + 50, (SELECT last_value FROM public.requests_seq)));
+SELECT setval('public.items_seq', GREATEST((SELECT COALESCE(MAX(id), 0) FROM public.items) + 50, (SELECT last_value FROM public.items_seq)));
+SELECT setval('public.comments_seq', GREATEST((SELECT COALESCE(MAX(id), 0) FROM public.comments) + 50, (SELECT last_value FROM public.comments_seq)));
+SELECT setval('public.bookings_seq', GREATEST((SELECT COALESCE(MAX(id), 0) FROM public.bookings) + 50, (SELECT last_value FROM public.bookings_seq)));
+
+ALTER TABLE public.items
+    ADD COLUMN IF NOT EXISTS search_vector tsvector
+        GENERATED ALWAYS AS (setweight(to_tsvector('simple', "name"), 'A') ||
+                             setweight(to_tsvector('simple', description), 'B')) STORED;
+
+CREATE INDEX IF NOT EXISTS items_search_vector_idx ON public.items USING gin (search_vector) WHERE is_available;
+CREATE INDEX IF NOT EXISTS items_name_trgm_idx ON public.items USING gin ("name" gin_trgm_ops) WHERE is_available;
+CREATE INDEX IF NOT EXISTS items_description_trgm_idx ON public.items USING gin (description gin_trgm_ops) WHERE is_available;
+
+CREATE INDEX IF NOT EXISTS items_owner_idx ON public.items (owner_id) INCLUDE ("name");
+
+-- Booking listings seek on (start_date, id) and project BookingDto straight from the index.
+CREATE INDEX IF NOT EXISTS bookings_booker_start_idx
+    ON public.bookings (booker_id, start_date DESC, id DESC) INCLUDE (end_date, status, item_id);
+CREATE INDEX IF NOT EXISTS bookings_booker_status_start_idx
+    ON public.bookings (booker_id, status, start_date DESC, id DESC) INCLUDE (end_date, item_id);
+CREATE INDEX IF NOT EXISTS bookings_booker_phase_start_idx
+    ON public.bookings (booker_id, phase, start_date DESC, id DESC) INCLUDE (end_date, status, item_id);
+CREATE INDEX IF NOT EXISTS bookings_item_start_idx
+    ON public.bookings (item_id, start_date DESC, id DESC) INCLUDE (end_date, status, booker_id);
+CREATE INDEX IF NOT EXISTS bookings_item_end_idx ON public.bookings (item_id, end_date);
+-- Comment eligibility: has the user completed an APPROVED booking of the item.
+CREATE INDEX IF NOT EXISTS bookings_booker_item_approved_end_idx
+    ON public.bookings (booker_id, item_id, end_date) WHERE status = 1;
+
+-- Queues of the phase sweeper: FUTURE bookings by start and CURRENT bookings by end.
+CREATE INDEX IF NOT EXISTS bookings_future_start_idx ON public.bookings (start_date) WHERE phase = 0;
+CREATE INDEX IF NOT EXISTS bookings_current_end_idx ON public.bookings (end_date) WHERE phase = 1;
+-- Walked in id order by the expiry job looking for WAITING bookings that have started.
+CREATE INDEX IF NOT EXISTS bookings_waiting_id_idx ON public.bookings (id) INCLUDE (start_date) WHERE status = 0;
+
+-- Backstop for the in-memory conflict check: WAITING and APPROVED bookings of an item never overlap.
+CREATE EXTENSION IF NOT EXISTS btree_gist;
+
+DO 'BEGIN
+    ALTER TABLE public.bookings ADD CONSTRAINT bookings_no_overlap
+        EXCLUDE USING gist (item_id WITH =, tsrange(start_date, end_date) WITH &&) WHERE (status IN (0, 1));
+EXCEPTION
+    WHEN duplicate_object OR duplicate_table THEN NULL;
+    WHEN exclusion_violation THEN RAISE WARNING ''bookings_no_overlap not created: overlapping bookings exist'';
+END';
+
+-- Bookings that ended long ago, moved here by the archive job and read only by history listings.
+-- Partitioned by year of end_date, so a whole year can be detached or dropped at once.
+CREATE TABLE IF NOT EXISTS public.bookings_archive
+(
+    id         bigint                      NOT NULL,
+    start_date timestamp without time zone NOT NULL,
+    end_date   timestamp without time zone NOT NULL,
+    item_id    bigint                      NOT NULL,
+    booker_id  bigint                      NOT NULL,
+    status     int                         NOT NULL,
+    version    bigint                      NOT NULL,
+    CONSTRAINT bookings_archive_pk PRIMARY KEY (id, end_date),
+    CONSTRAINT bookings_archive_items_fk FOREIGN KEY (item_id) REFERENCES public.items (id) ON DELETE CASCADE,
+    CONSTRAINT bookings_archive_users_fk FOREIGN KEY (booker_id) REFERENCES public.users (id) ON DELETE CASCADE
+) PARTITION BY RANGE (end_date);
+
+CREATE TABLE IF NOT EXISTS public.bookings_archive_default PARTITION OF public.bookings_archive DEFAULT;
+
+DO 'DECLARE
+    year int;
+BEGIN
+    FOR year IN 2015..extract(year FROM now())::int + 1 LOOP
+        EXECUTE format(''CREATE TABLE IF NOT EXISTS public.bookings_archive_%s PARTITION OF public.bookings_archive FOR VALUES FROM (%L) TO (%L)'',
+                       year, make_date(year, 1, 1), make_date(year + 1, 1, 1));
+    END LOOP;
+END';
+
+CREATE INDEX IF NOT EXISTS bookings_archive_booker_start_idx ON public.bookings_archive (booker_id, start_date DESC, id DESC);
+CREATE INDEX IF NOT EXISTS bookings_archive_item_start_idx ON public.bookings_archive (item_id, start_date DESC, id DESC);
+
+-- Queue of the archive job: ended bookings by end date.
+CREATE INDEX IF NOT EXISTS bookings_past_end_idx ON public.bookings (end_date) WHERE phase = 2;
+
+-- Items created before comment_count existed get it filled from their comments, once.
+DO 'BEGIN
+    IF NOT EXISTS (SELECT 1 FROM information_schema.columns
+                   WHERE table_schema = ''public'' AND table_name = ''items'' AND column_name = ''comment_count'') THEN
+        ALTER TABLE public.items ADD COLUMN comment_count int DEFAULT 0 NOT NULL;
+        UPDATE public.items it
+        SET comment_count = c.total
+        FROM (SELECT item_id, count(*) AS total FROM public.comments GROUP BY item_id) c
+        WHERE it.id = c.item_id;
+    END IF;
+END';
@@ -3,6 +3,7 @@ CREATE TABLE IF NOT EXISTS public.users
     id    bigint GENERATED BY DEFAULT AS IDENTITY NOT NULL,
     name  varchar(255)                            NOT NULL,
     email varchar(255)                            NOT NULL,
+    version bigint DEFAULT 0                      NOT NULL,
     CONSTRAINT users_pk PRIMARY KEY (id),
     CONSTRAINT users_email_unique UNIQUE (email)
 );
@@ -24,6 +25,8 @@ CREATE TABLE IF NOT EXISTS public.items
     is_available bool                                    NOT NULL,
     owner_id     bigint                                  NOT NULL,
     request_id   bigint                                  NULL,
+    comment_count int DEFAULT 0                         NOT NULL,
+    version      bigint DEFAULT 0                        NOT NULL,
     CONSTRAINT items_pk PRIMARY KEY (id),
     CONSTRAINT items_users_fk FOREIGN KEY (owner_id) REFERENCES public.users (id) ON DELETE CASCADE,
     CONSTRAINT items_requests_fk FOREIGN KEY (request_id) REFERENCES public.requests (id) ON DELETE SET NULL
@@ -49,8 +52,30 @@ CREATE TABLE IF NOT EXISTS public.bookings
     item_id    bigint                                  NOT NULL,
     booker_id  bigint                                  NOT NULL,
     status     int                                     NOT NULL,
+    phase      int DEFAULT 0                           NOT NULL,
+    version    bigint DEFAULT 0                        NOT NULL,
     CONSTRAINT booking_pk PRIMARY KEY (id),
     CONSTRAINT bookings_status_check CHECK (status between 0 and 3),
     CONSTRAINT bookings_items_fk FOREIGN KEY (item_id) REFERENCES public.items (id) ON DELETE CASCADE,
     CONSTRAINT bookings_users_fk FOREIGN KEY (booker_id) REFERENCES public.users (id) ON DELETE CASCADE
-);
\ No newline at end of file
+);
+
+-- Ids come from pooled sequences (one round trip per 50 rows) so inserts can be batched;
+-- INCREMENT BY must match allocationSize on the entities.
+CREATE SEQUENCE IF NOT EXISTS public.users_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS public.requests_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS public.items_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS public.comments_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS public.bookings_seq START WITH 1 INCREMENT BY 50;
+
+ALTER TABLE public.users ADD COLUMN IF NOT EXISTS version bigint DEFAULT 0 NOT NULL;
+ALTER TABLE public.items ADD COLUMN IF NOT EXISTS version bigint DEFAULT 0 NOT NULL;
+ALTER TABLE public.bookings ADD COLUMN IF NOT EXISTS version bigint DEFAULT 0 NOT NULL;
+-- Existing bookings start as FUTURE (0); the first phase sweep moves them to their actual phase.
+ALTER TABLE public.bookings ADD COLUMN IF NOT EXISTS phase int DEFAULT 0 NOT NULL;
+
+-- Comment listings seek on (insert_date, id) within an item.
+DROP INDEX IF EXISTS public.comments_item_idx;
+CREATE INDEX IF NOT EXISTS comments_item_created_idx ON public.comments (item_id, insert_date DESC, id DESC);
+CREATE INDEX IF NOT EXISTS comments_user_idx ON public.comments (user_id);
+CREATE INDEX IF NOT EXISTS requests_requestor_idx ON public.requests (requestor_id);
@@ -0,0 +1,95 @@
+package ru.practicum.shareit;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.model.User;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compares insert throughput with JDBC batching off (one round trip per row, which is all
+ * IDENTITY ids allowed) and on (sequence ids, {@code hibernate.jdbc.batch_size}).
+ *
+ * <p>Excluded from the default build; run with {@code mvn test -P benchmark}. Point
+ * {@code spring.datasource.url} at PostgreSQL to see the effect of network round trips.
+ */
+@Slf4j
+@Tag("benchmark")
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:share-it-benchmark;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "spring.jpa.show-sql=false",
+        "logging.level.org.hibernate.SQL=INFO",
+        "logging.level.org.hibernate.orm.jdbc.bind=INFO"})
+@ActiveProfiles("test")
+@TestPropertySource(locations = "classpath:application-test.properties")
+public class InsertBatchingBenchmarkTest {
+    private static final int WARMUP_ROUNDS = 3;
+    private static final int ROUNDS = 5;
+    private static final int USERS_PER_ROUND = 2_000;
+
+    private final AtomicInteger emailSequence = new AtomicInteger();
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void insertThroughputTest() {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            insertRound(1);
+            insertRound(null);
+        }
+
+        long unbatched = 0;
+        long batched = 0;
+        for (int i = 0; i < ROUNDS; i++) {
+            unbatched += insertRound(1);
+            batched += insertRound(null);
+        }
+
+        int rows = ROUNDS * USERS_PER_ROUND * 2;
+        log.info("Inserted {} rows per mode: batch size 1 - {} rows/s, configured batch size - {} rows/s",
+                rows, rows * 1_000_000_000L / unbatched, rows * 1_000_000_000L / batched);
+        assertEquals((long) (WARMUP_ROUNDS + ROUNDS) * 2 * USERS_PER_ROUND,
+                entityManager.createQuery("select count(u) from User u", Long.class).getSingleResult());
+    }
+
+    /**
+     * Persists users interleaved with their items, so batching also depends on {@code order_inserts}.
+     *
+     * @return elapsed nanoseconds
+     */
+    private long insertRound(Integer batchSize) {
+        long started = System.nanoTime();
+        transactionTemplate.executeWithoutResult(status -> {
+            entityManager.unwrap(Session.class).setJdbcBatchSize(batchSize);
+            for (int i = 0; i < USERS_PER_ROUND; i++) {
+                User user = new User();
+                user.setName("user");
+                user.setEmail("bench" + emailSequence.incrementAndGet() + "@test.com");
+                entityManager.persist(user);
+
+                Item item = new Item();
+                item.setName("item");
+                item.setDescription("description");
+                item.setIsAvailable(true);
+                item.setOwner(user);
+                entityManager.persist(item);
+            }
+        });
+        return System.nanoTime() - started;
+    }
+}
@@ -0,0 +1,28 @@
+package ru.practicum.shareit;
+
+import org.junit.jupiter.api.Tag;
+import org.springframework.boot.test.context.SpringBootTest;
+
+/**
+ * {@link QueryPlanTest} against PostgreSQL, with the schema built by {@code schema.sql} and
+ * {@code schema-postgresql.sql}, so the partial, covering, full-text and trigram indexes that H2
+ * does not have are checked too. The seeded rows are rolled back after every test.
+ *
+ * <p>Excluded from the default build; run with {@code mvn test -P postgres-plans} against an empty
+ * database given by {@code -Dshareit.plan.url}, {@code -Dshareit.plan.username} and
+ * {@code -Dshareit.plan.password}.
+ */
+@Tag("postgres")
+@SpringBootTest(properties = {
+        "spring.datasource.url=${shareit.plan.url:jdbc:postgresql://localhost:5432/share-it-plan}",
+        "spring.datasource.username=${shareit.plan.username:dbuser}",
+        "spring.datasource.password=${shareit.plan.password:12345}",
+        "spring.datasource.driver-class-name=org.postgresql.Driver",
+        "spring.jpa.database-platform=org.hibernate.dialect.PostgreSQLDialect",
+        "spring.jpa.hibernate.ddl-auto=none",
+        "spring.sql.init.platform=postgresql",
+        "shareit.search.engine=postgres",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "ru.practicum.shareit.QueryPlanTest$RecordingStatementInspector"})
+public class PostgresQueryPlanTest extends QueryPlanTest {
+}
@@ -0,0 +1,304 @@
+package ru.practicum.shareit;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.ArchivedBookingRepository;
+import ru.practicum.shareit.booking.BookingIntervalIndex;
+import ru.practicum.shareit.booking.BookingPhase;
+import ru.practicum.shareit.booking.BookingRepository;
+import ru.practicum.shareit.booking.BookingStatus;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.item.CommentRepository;
+import ru.practicum.shareit.item.ItemRepository;
+import ru.practicum.shareit.util.KeysetCursor;
+import ru.practicum.shareit.util.OffsetPageable;
+import java.sql.Connection;
+import java.sql.ParameterMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+
+/**
+ * Runs EXPLAIN for the SQL Hibernate generates for every custom repository query
+ * against a seeded dataset and fails if any of them falls back to a full table scan.
+ *
+ * <p>H2 silently indexes every foreign key column, which would hide a missing index. On H2 the
+ * suite runs against its own database with foreign keys dropped, so plans only see the indexes
+ * declared in the schema scripts, as on PostgreSQL.
+ *
+ * <p>The item search relies on PostgreSQL's full-text and trigram indexes, so its plans are only
+ * checked there, by {@link PostgresQueryPlanTest}. On PostgreSQL sequential scans are disabled for
+ * the seeded transaction: a tiny table may be cheaper to scan, but with the setting off a scan in
+ * the plan means that no index can serve the query at all.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:share-it-plan;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "ru.practicum.shareit.QueryPlanTest$RecordingStatementInspector"})
+@ActiveProfiles("test")
+@TestPropertySource(locations = "classpath:application-test.properties")
+@Transactional
+public class QueryPlanTest {
+    private static final List<String> FULL_SCAN_MARKERS = List.of(".tableScan", "Seq Scan");
+    private static final long SEED_ID = 1_000_000L;
+    private static final int USERS = 50;
+    private static final int ITEMS = 500;
+    private static final int BOOKINGS = 5_000;
+    private static final int COMMENTS = 1_000;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private ArchivedBookingRepository archivedBookingRepository;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private CommentRepository commentRepository;
+
+    @BeforeEach
+    void setUp() {
+        dropImplicitForeignKeyIndexes();
+
+        LocalDateTime now = LocalDateTime.now();
+        List<Object[]> users = new ArrayList<>();
+        for (long i = 0; i < USERS; i++) {
+            users.add(new Object[]{SEED_ID + i, "user " + i, "plan" + i + "@test.com"});
+        }
+        jdbcTemplate.batchUpdate("insert into users (id, name, email) values (?, ?, ?)", users);
+
+        List<Object[]> items = new ArrayList<>();
+        for (long i = 0; i < ITEMS; i++) {
+            items.add(new Object[]{SEED_ID + i, "item " + i, "description " + i, true, SEED_ID + i % USERS});
+        }
+        jdbcTemplate.batchUpdate(
+                "insert into items (id, name, description, is_available, owner_id, comment_count) values (?, ?, ?, ?, ?, 0)",
+                items);
+
+        List<Object[]> bookings = new ArrayList<>();
+        for (long i = 0; i < BOOKINGS; i++) {
+            LocalDateTime start = now.plusHours(i - BOOKINGS / 2);
+            bookings.add(new Object[]{SEED_ID + i, Timestamp.valueOf(start), Timestamp.valueOf(start.plusHours(2)),
+                    SEED_ID + i % ITEMS, SEED_ID + (i + 1) % USERS, (int) (i % 4),
+                    BookingPhase.of(start, start.plusHours(2), now).ordinal()});
+        }
+        jdbcTemplate.batchUpdate("insert into bookings (id, start_date, end_date, item_id, booker_id, status, phase, version) "
+                + "values (?, ?, ?, ?, ?, ?, ?, 0)", bookings);
+
+        List<Object[]> comments = new ArrayList<>();
+        for (long i = 0; i < COMMENTS; i++) {
+            comments.add(new Object[]{SEED_ID + i, "comment " + i, SEED_ID + i % ITEMS, Timestamp.valueOf(now),
+                    SEED_ID + i % USERS});
+        }
+        jdbcTemplate.batchUpdate("insert into comments (id, text, item_id, insert_date, user_id) "
+                + "values (?, ?, ?, ?, ?)", comments);
+
+        jdbcTemplate.execute((Connection connection) -> {
+            if (connection.getMetaData().getDatabaseProductName().equals("PostgreSQL")) {
+                connection.createStatement().execute("ANALYZE");
+                connection.createStatement().execute("SET LOCAL enable_seqscan = off");
+            }
+            return null;
+        });
+
+        RecordingStatementInspector.STATEMENTS.clear();
+    }
+
+    private void dropImplicitForeignKeyIndexes() {
+        if (!isH2()) {
+            return;
+        }
+
+        jdbcTemplate.queryForList("""
+                select table_name, constraint_name
+                from information_schema.table_constraints
+                where constraint_type = 'FOREIGN KEY' and table_schema = 'PUBLIC'
+                """).forEach(constraint -> jdbcTemplate.execute(String.format(
+                "alter table \"%s\" drop constraint \"%s\"",
+                constraint.get("TABLE_NAME"), constraint.get("CONSTRAINT_NAME"))));
+    }
+
+    private boolean isH2() {
+        return Boolean.TRUE.equals(jdbcTemplate.execute((Connection connection) ->
+                connection.getMetaData().getDatabaseProductName().equals("H2")));
+    }
+
+    @Test
+    void bookingQueriesUseIndexes() {
+        Long userId = SEED_ID + 1;
+        Long itemId = SEED_ID + 2;
+        LocalDateTime start = KeysetCursor.FIRST.time();
+        Long id = KeysetCursor.FIRST.id();
+        Limit limit = Limit.of(21);
+
+        bookingRepository.findByBookerId(userId, start, id, limit);
+        bookingRepository.findByBookerIdAndStatusId(userId, BookingStatus.WAITING, start, id, limit);
+        bookingRepository.findByOwnerId(userId, start, id, limit);
+        try (Stream<BookingDto> bookings = bookingRepository.streamByBookerId(userId)) {
+            bookings.forEach(booking -> { });
+        }
+        try (Stream<BookingDto> bookings = bookingRepository.streamByOwnerId(userId)) {
+            bookings.forEach(booking -> { });
+        }
+        bookingRepository.findByOwnerIdAndStatusId(userId, BookingStatus.WAITING, start, id, limit);
+        bookingRepository.findByBookerIdAndPhase(userId, BookingPhase.CURRENT, start, id, limit);
+        bookingRepository.findByOwnerIdAndPhase(userId, BookingPhase.CURRENT, start, id, limit);
+        bookingRepository.findWithoutItemByBookerId(userId, start, id, limit);
+        bookingRepository.findWithoutItemByBookerIdAndStatusId(userId, BookingStatus.WAITING, start, id, limit);
+        bookingRepository.findWithoutItemByBookerIdAndPhase(userId, BookingPhase.CURRENT, start, id, limit);
+        bookingRepository.startBookings(LocalDateTime.now());
+        bookingRepository.endBookings(LocalDateTime.now());
+        bookingRepository.findStaleWaiting(LocalDateTime.now(), SEED_ID, Limit.of(500));
+        bookingRepository.findWaitingByIdIn(List.of(SEED_ID, SEED_ID + 1));
+        bookingRepository.cancelWaiting(List.of(SEED_ID, SEED_ID + 1));
+        bookingRepository.findArchivableIds(LocalDateTime.now().minusDays(1), Limit.of(1000));
+        archivedBookingRepository.findByBookerId(userId, start, id, limit);
+        archivedBookingRepository.findByBookerIdAndStatus(userId, BookingStatus.REJECTED, start, id, limit);
+        archivedBookingRepository.findByOwnerId(userId, start, id, limit);
+        archivedBookingRepository.findByOwnerIdAndStatus(userId, BookingStatus.REJECTED, start, id, limit);
+        try (Stream<BookingDto> bookings = archivedBookingRepository.streamByBookerId(userId)) {
+            bookings.forEach(booking -> { });
+        }
+        try (Stream<BookingDto> bookings = archivedBookingRepository.streamByOwnerId(userId)) {
+            bookings.forEach(booking -> { });
+        }
+        archivedBookingRepository.existsByBooker_IdAndItem_IdAndStatus(userId, itemId, BookingStatus.APPROVED);
+        bookingRepository.existsByBooker_IdAndItem_IdAndStatusAndEndBefore(userId, itemId, BookingStatus.APPROVED,
+                LocalDateTime.now());
+        bookingRepository.findEndingApproved(LocalDateTime.now());
+        archivedBookingRepository.copyFromBookings(List.of(SEED_ID, SEED_ID + 1));
+        bookingRepository.getLastEndDateByItemId(itemId, LocalDateTime.now());
+        bookingRepository.getNextStartDateByItemId(itemId, LocalDateTime.now());
+        bookingRepository.getLastEndDatesByItemIds(List.of(itemId, itemId + 1), LocalDateTime.now());
+        bookingRepository.getNextStartDatesByItemIds(List.of(itemId, itemId + 1), LocalDateTime.now());
+        bookingRepository.findIntervalsByItemId(itemId, List.of(BookingStatus.WAITING, BookingStatus.APPROVED),
+                LocalDateTime.now());
+        bookingRepository.findIntervalsByItemIdIn(List.of(itemId, itemId + 1),
+                List.of(BookingStatus.WAITING, BookingStatus.APPROVED), LocalDateTime.now());
+        bookingRepository.findItemIdById(SEED_ID);
+        bookingRepository.findItemIdsByBookerIdAndStatusIn(userId, BookingIntervalIndex.ACTIVE_STATUSES);
+        bookingRepository.findVersionById(SEED_ID);
+        bookingRepository.findWithItemByIdIn(List.of(SEED_ID, SEED_ID + 1));
+
+        assertIndexedPlans();
+    }
+
+    @Test
+    void itemQueriesUseIndexes() {
+        Long userId = SEED_ID + 1;
+
+        itemRepository.findWithRequestByOwnerId(userId);
+        itemRepository.findShortByOwnerId(userId);
+        itemRepository.findIdsByOwnerId(userId);
+        itemRepository.findShort(SEED_ID + 2);
+        itemRepository.findVersionById(SEED_ID + 2);
+        itemRepository.findAvailabilityByIdIn(List.of(SEED_ID + 2, SEED_ID + 3));
+        itemRepository.findWithRequestByIdIn(List.of(SEED_ID + 2, SEED_ID + 3));
+        itemRepository.findDetailById(SEED_ID + 2, userId, LocalDateTime.now(), 10);
+
+        assertIndexedPlans();
+    }
+
+    @Test
+    void commentQueriesUseIndexes() {
+        Long itemId = SEED_ID + 2;
+
+        commentRepository.findNewestByItemIdIn(List.of(itemId, itemId + 1), 10);
+        commentRepository.findByItemId(itemId, KeysetCursor.FIRST.time(), KeysetCursor.FIRST.id(), Limit.of(21));
+        commentRepository.countByAuthorIdGroupByItemId(SEED_ID + 1);
+
+        assertIndexedPlans();
+    }
+
+    @Test
+    void itemSearchQueriesUseIndexes() {
+        assumeFalse(isH2(), "H2 has no full-text or trigram indexes");
+
+        itemRepository.findAvailableBySearchString("item 4", new OffsetPageable(0, 20));
+        itemRepository.searchAvailableRanked("item 4", new OffsetPageable(0, 20));
+
+        assertIndexedPlans();
+    }
+
+    private void assertIndexedPlans() {
+        Set<String> statements = new LinkedHashSet<>(RecordingStatementInspector.STATEMENTS);
+        assertFalse(statements.isEmpty(), "No statements were recorded");
+
+        List<String> failures = new ArrayList<>();
+        for (String sql : statements) {
+            String plan = explain(sql);
+            if (FULL_SCAN_MARKERS.stream().anyMatch(plan::contains)) {
+                failures.add(sql + System.lineSeparator() + "--> " + plan);
+            }
+        }
+
+        assertTrue(failures.isEmpty(), "Queries regressed to a full scan:" + System.lineSeparator()
+                + String.join(System.lineSeparator() + System.lineSeparator(), failures));
+    }
+
+    private String explain(String sql) {
+        return jdbcTemplate.execute("EXPLAIN " + sql, (PreparedStatement statement) -> {
+            ParameterMetaData metaData = statement.getParameterMetaData();
+            for (int i = 1; i <= metaData.getParameterCount(); i++) {
+                bindSample(statement, i, metaData.getParameterType(i));
+            }
+
+            StringBuilder plan = new StringBuilder();
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    plan.append(resultSet.getString(1)).append(System.lineSeparator());
+                }
+            }
+            return plan.toString();
+        });
+    }
+
+    private static void bindSample(PreparedStatement statement, int index, int type) throws SQLException {
+        switch (type) {
+            case Types.BIGINT, Types.INTEGER, Types.SMALLINT, Types.TINYINT, Types.NUMERIC, Types.DECIMAL ->
+                    statement.setLong(index, SEED_ID + 1);
+            case Types.TIMESTAMP, Types.TIMESTAMP_WITH_TIMEZONE ->
+                    statement.setTimestamp(index, Timestamp.valueOf(LocalDateTime.now()));
+            case Types.BOOLEAN, Types.BIT -> statement.setBoolean(index, true);
+            default -> statement.setString(index, "sample");
+        }
+    }
+
+    public static class RecordingStatementInspector implements StatementInspector {
+        static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            if (sql.trim().toLowerCase(Locale.ROOT).startsWith("select")) {
+                STATEMENTS.add(sql);
+            }
+            return sql;
+        }
+    }
+}
@@ -0,0 +1,317 @@
+package ru.practicum.shareit.booking;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.CreateBookingRequest;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.exception.ValidationException;
+import ru.practicum.shareit.item.ItemRepository;
+import ru.practicum.shareit.item.ItemService;
+import ru.practicum.shareit.item.dto.CreateItemRequest;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.UserRepository;
+import ru.practicum.shareit.user.UserService;
+import ru.practicum.shareit.user.dto.CreateUserRequest;
+import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.model.User;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs booking writes from several threads against committed data, without a test transaction.
+ * Few lock stripes make items share stripes, as they do with many items in production.
+ */
+@SpringBootTest(properties = "shareit.booking.lock-stripes=" + BookingConcurrencyTest.LOCK_STRIPES)
+@ActiveProfiles("test")
+@TestPropertySource(locations = "classpath:application-test.properties")
+public class BookingConcurrencyTest {
+    private static final int THREADS = 8;
+    private static final int ROUNDS = 10;
+    static final int LOCK_STRIPES = 4;
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private ItemService itemService;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ItemLockManager itemLockManager;
+
+    private final List<Long> itemIds = new ArrayList<>();
+    private UserDto ownerUser;
+    private UserDto bookerUser;
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newFixedThreadPool(THREADS);
+
+        CreateUserRequest ownerRequest = new CreateUserRequest();
+        ownerRequest.setName("Concurrent Owner");
+        ownerRequest.setEmail("concurrent-owner@test.com");
+        ownerUser = userService.createUser(ownerRequest);
+
+        CreateUserRequest bookerRequest = new CreateUserRequest();
+        bookerRequest.setName("Concurrent Booker");
+        bookerRequest.setEmail("concurrent-booker@test.com");
+        bookerUser = userService.createUser(bookerRequest);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+        bookingRepository.deleteAll(bookingRepository.findAll().stream()
+                .filter(booking -> itemIds.contains(booking.getItem().getId()))
+                .toList());
+        itemRepository.deleteAllById(itemIds);
+        userRepository.deleteAllById(List.of(ownerUser.getId(), bookerUser.getId()));
+    }
+
+    @Test
+    void concurrentOverlappingBookingsCreateOnlyOne() throws Exception {
+        for (int round = 0; round < ROUNDS; round++) {
+            Long itemId = createItem();
+            LocalDateTime start = LocalDateTime.now().plusDays(1);
+
+            List<Callable<BookingDto>> tasks = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                CreateBookingRequest request = new CreateBookingRequest();
+                request.setItemId(itemId);
+                request.setStart(start.plusHours(i));
+                request.setEnd(start.plusDays(1).plusHours(i));
+                tasks.add(() -> bookingService.createBooking(request, bookerUser.getId()));
+            }
+
+            assertEquals(1, countSucceeded(runTogether(tasks)));
+            assertEquals(1, bookingRepository.findIntervalsByItemId(itemId,
+                    BookingIntervalIndex.ACTIVE_STATUSES, LocalDateTime.now()).size());
+        }
+    }
+
+    @Test
+    void concurrentApprovalsOfOverlappingBookingsApproveOnlyOne() throws Exception {
+        for (int round = 0; round < ROUNDS; round++) {
+            Long itemId = createItem();
+            List<Long> bookingIds = saveOverlappingWaitingBookings(itemId);
+
+            List<Callable<BookingDto>> tasks = new ArrayList<>();
+            for (Long bookingId : bookingIds) {
+                tasks.add(() -> bookingService.approveBooking(bookingId, ownerUser.getId(), true, null));
+            }
+
+            assertEquals(1, countSucceeded(runTogether(tasks)));
+            assertEquals(1, bookingRepository.findIntervalsByItemId(itemId,
+                    List.of(BookingStatus.APPROVED), LocalDateTime.now()).size());
+        }
+    }
+
+    @Test
+    void concurrentApprovalsOfSameBookingApproveOnce() throws Exception {
+        Long itemId = createItem();
+        CreateBookingRequest request = new CreateBookingRequest();
+        request.setItemId(itemId);
+        request.setStart(LocalDateTime.now().plusDays(1));
+        request.setEnd(LocalDateTime.now().plusDays(2));
+        Long bookingId = bookingService.createBooking(request, bookerUser.getId()).getId();
+
+        List<Callable<BookingDto>> tasks = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            tasks.add(() -> bookingService.approveBooking(bookingId, ownerUser.getId(), true, null));
+        }
+
+        assertEquals(1, countSucceeded(runTogether(tasks)));
+    }
+
+    @Test
+    void deletedBookerNoLongerBlocksItem() {
+        Long itemId = createItem();
+        CreateUserRequest leavingRequest = new CreateUserRequest();
+        leavingRequest.setName("Leaving Booker");
+        leavingRequest.setEmail("leaving-booker@test.com");
+        UserDto leaving = userService.createUser(leavingRequest);
+
+        CreateBookingRequest request = new CreateBookingRequest();
+        request.setItemId(itemId);
+        request.setStart(LocalDateTime.now().plusDays(1));
+        request.setEnd(LocalDateTime.now().plusDays(2));
+        bookingService.createBooking(request, leaving.getId());
+        // read the item's intervals in a committed transaction, so its tree stays loaded
+        assertEquals(1, itemService.getItemAvailability(itemId, ownerUser.getId(), request.getStart(),
+                request.getEnd()).getBusy().size());
+
+        userService.deleteUser(leaving.getId());
+
+        assertTrue(itemService.getItemAvailability(itemId, ownerUser.getId(), request.getStart(),
+                request.getEnd()).getBusy().isEmpty());
+        assertEquals(BookingStatus.WAITING, bookingService.createBooking(request, bookerUser.getId()).getStatus());
+    }
+
+    /**
+     * Batch {@code first} holds items on stripes S and T with the S item first by id, batch
+     * {@code second} the other way round. While another transaction holds T, {@code second} queues
+     * for T and then {@code first} starts; locking in item id order, {@code first} would take S and
+     * the two batches would deadlock once T is released to {@code second}.
+     */
+    @Test
+    void concurrentBatchesOnCrossedStripesComplete() throws Exception {
+        List<Long> created = new ArrayList<>();
+        for (int i = 0; i < 3 * LOCK_STRIPES; i++) {
+            created.add(createItem());
+        }
+        List<Long> first = null;
+        List<Long> second = null;
+        for (int a = 0; a < created.size() && first == null; a++) {
+            for (int b = a + 1; b < created.size() && first == null; b++) {
+                for (int c = b + 1; c < created.size() && first == null; c++) {
+                    for (int d = c + 1; d < created.size() && first == null; d++) {
+                        Long i = created.get(a);
+                        Long j = created.get(b);
+                        Long k = created.get(c);
+                        Long l = created.get(d);
+                        if (stripe(i) == stripe(l) && stripe(j) == stripe(k) && stripe(i) != stripe(j)) {
+                            first = List.of(i, k);
+                            second = List.of(j, l);
+                        }
+                    }
+                }
+            }
+        }
+        assertNotNull(first);
+
+        CountDownLatch held = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Long heldItemId = second.getFirst();
+        Future<?> holder = executor.submit(() -> new TransactionTemplate(transactionManager)
+                .executeWithoutResult(status -> {
+                    itemLockManager.lock(heldItemId);
+                    held.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }));
+        held.await();
+
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        List<CreateBookingRequest> secondRequests = batchRequests(second, start);
+        Future<BookingBatchResultDto> secondResult = executor.submit(() ->
+                bookingService.createBookings(secondRequests, bookerUser.getId(), BookingBatchMode.ATOMIC));
+        Thread.sleep(200);
+        List<CreateBookingRequest> firstRequests = batchRequests(first, start);
+        Future<BookingBatchResultDto> firstResult = executor.submit(() ->
+                bookingService.createBookings(firstRequests, bookerUser.getId(), BookingBatchMode.ATOMIC));
+        Thread.sleep(200);
+        release.countDown();
+
+        holder.get(10, TimeUnit.SECONDS);
+        assertTrue(firstResult.get(10, TimeUnit.SECONDS).isApplied());
+        assertTrue(secondResult.get(10, TimeUnit.SECONDS).isApplied());
+    }
+
+    private static List<CreateBookingRequest> batchRequests(List<Long> itemIds, LocalDateTime start) {
+        return itemIds.stream()
+                .map(itemId -> {
+                    CreateBookingRequest request = new CreateBookingRequest();
+                    request.setItemId(itemId);
+                    request.setStart(start);
+                    request.setEnd(start.plusHours(1));
+                    return request;
+                })
+                .toList();
+    }
+
+    private static int stripe(Long itemId) {
+        return Math.floorMod(itemId.hashCode(), LOCK_STRIPES);
+    }
+
+    private Long createItem() {
+        CreateItemRequest request = new CreateItemRequest();
+        request.setName("Contended Item");
+        request.setDescription("Booked from many threads");
+        request.setAvailable(true);
+        Long itemId = itemService.createItem(request, ownerUser.getId()).getId();
+        itemIds.add(itemId);
+        return itemId;
+    }
+
+    private List<Long> saveOverlappingWaitingBookings(Long itemId) {
+        return new TransactionTemplate(transactionManager).execute(status -> {
+            Item item = itemRepository.getReferenceById(itemId);
+            User booker = userRepository.getReferenceById(bookerUser.getId());
+            LocalDateTime start = LocalDateTime.now().plusDays(1);
+            List<Long> bookingIds = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                Booking booking = new Booking();
+                booking.setStart(start.plusHours(i));
+                booking.setEnd(start.plusDays(1).plusHours(i));
+                booking.setStatus(BookingStatus.WAITING);
+                booking.setItem(item);
+                booking.setBooker(booker);
+                bookingIds.add(bookingRepository.save(booking).getId());
+            }
+            return bookingIds;
+        });
+    }
+
+    private List<Future<BookingDto>> runTogether(List<Callable<BookingDto>> tasks) throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<BookingDto>> futures = new ArrayList<>();
+        for (Callable<BookingDto> task : tasks) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                return task.call();
+            }));
+        }
+        start.countDown();
+        return futures;
+    }
+
+    private static int countSucceeded(List<Future<BookingDto>> futures) throws InterruptedException {
+        int succeeded = 0;
+        for (Future<BookingDto> future : futures) {
+            try {
+                future.get();
+                succeeded++;
+            } catch (ExecutionException e) {
+                assertInstanceOf(ValidationException.class, e.getCause());
+            }
+        }
+        return succeeded;
+    }
+}
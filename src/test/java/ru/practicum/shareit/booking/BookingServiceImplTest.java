@@ -4,12 +4,16 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.BeforeEach;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
+import ru.practicum.shareit.booking.dto.BookingDecisionRequest;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.CreateBookingRequest;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.exception.NotFoundException;
 import ru.practicum.shareit.exception.ValidationException;
 import ru.practicum.shareit.item.ItemService;
 import ru.practicum.shareit.item.dto.CreateItemRequest;
@@ -17,8 +21,13 @@ import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.user.UserService;
 import ru.practicum.shareit.user.dto.CreateUserRequest;
 import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.util.FieldSet;
+import ru.practicum.shareit.util.KeysetPage;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -40,6 +49,18 @@ public class BookingServiceImplTest {
     @Autowired
     private BookingRepository bookingRepository;
 
+    @Autowired
+    private BookingPhaseSweeper bookingPhaseSweeper;
+
+    @Autowired
+    private BookingExpiryJob bookingExpiryJob;
+
+    @Autowired
+    private BookingArchiveJob bookingArchiveJob;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
     private UserDto ownerUser;
     private UserDto bookerUser;
     private ItemDto testItem;
@@ -84,6 +105,18 @@ public class BookingServiceImplTest {
         assertEquals(BookingStatus.WAITING, foundBooking.getStatus());
     }
 
+    @Test
+    void createBookingWhenBookerDeletedOnAnotherNode() {
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        bookingService.createBooking(bookingRequest(start, start.plusDays(1)), bookerUser.getId());
+
+        // another node deletes the booker; this node's existence cache still holds the id
+        jdbcTemplate.update("delete from users where id = ?", bookerUser.getId());
+
+        assertThrows(NotFoundException.class, () -> bookingService.createBooking(
+                bookingRequest(start.plusDays(2), start.plusDays(3)), bookerUser.getId()));
+    }
+
     @Test
     void createBookingWhenItemNotAvailable() {
         CreateItemRequest unavailableItemRequest = new CreateItemRequest();
@@ -101,6 +134,59 @@ public class BookingServiceImplTest {
                 () -> bookingService.createBooking(request, bookerUser.getId()));
     }
 
+    @Test
+    void getBookingsByIdsTest() {
+        CreateBookingRequest request = new CreateBookingRequest();
+        request.setItemId(testItem.getId());
+        request.setStart(LocalDateTime.now().plusDays(1));
+        request.setEnd(LocalDateTime.now().plusDays(2));
+        BookingDto first = bookingService.createBooking(request, bookerUser.getId());
+        request.setStart(LocalDateTime.now().plusDays(3));
+        request.setEnd(LocalDateTime.now().plusDays(4));
+        BookingDto second = bookingService.createBooking(request, bookerUser.getId());
+
+        List<BookingDto> byOwner = bookingService.getBookingsByIds(
+                Set.of(second.getId(), first.getId()), ownerUser.getId());
+
+        assertEquals(List.of(first.getId(), second.getId()), byOwner.stream().map(BookingDto::getId).toList());
+        assertEquals(bookerUser.getId(), byOwner.getFirst().getBooker().id());
+        assertEquals(testItem.getName(), byOwner.getFirst().getItem().name());
+        assertEquals(2, bookingService.getBookingsByIds(
+                Set.of(first.getId(), second.getId()), bookerUser.getId()).size());
+
+        CreateUserRequest strangerRequest = new CreateUserRequest();
+        strangerRequest.setName("Stranger");
+        strangerRequest.setEmail("stranger@test.com");
+        UserDto stranger = userService.createUser(strangerRequest);
+
+        assertThrows(ValidationException.class,
+                () -> bookingService.getBookingsByIds(Set.of(first.getId()), stranger.getId()));
+        assertThrows(NotFoundException.class,
+                () -> bookingService.getBookingsByIds(Set.of(first.getId(), 9999L), ownerUser.getId()));
+    }
+
+    @Test
+    void getBookingsByUserAndStateWithoutItemTest() {
+        CreateBookingRequest request = new CreateBookingRequest();
+        request.setItemId(testItem.getId());
+        request.setStart(LocalDateTime.now().plusDays(1));
+        request.setEnd(LocalDateTime.now().plusDays(2));
+        BookingDto created = bookingService.createBooking(request, bookerUser.getId());
+
+        for (BookingState state : List.of(BookingState.ALL, BookingState.FUTURE, BookingState.WAITING)) {
+            List<BookingDto> bookings = bookingService.getBookingsByUserAndState(bookerUser.getId(), state, null, 10,
+                    FieldSet.parse("id,start,status", BookingDto.class)).rows();
+
+            assertEquals(List.of(created.getId()), bookings.stream().map(BookingDto::getId).toList());
+            assertNull(bookings.getFirst().getItem());
+            assertEquals(BookingStatus.WAITING, bookings.getFirst().getStatus());
+        }
+        assertEquals(testItem.getName(), bookingService.getBookingsByUserAndState(bookerUser.getId(),
+                BookingState.ALL, null, 10, FieldSet.parse("id,item", BookingDto.class))
+                .rows().getFirst().getItem().name());
+        assertThrows(ValidationException.class, () -> FieldSet.parse("id,owner", BookingDto.class));
+    }
+
     @Test
     void approveBookingTest() {
         CreateBookingRequest request = new CreateBookingRequest();
@@ -110,7 +196,7 @@ public class BookingServiceImplTest {
         BookingDto createdBooking = bookingService.createBooking(request, bookerUser.getId());
 
         BookingDto approvedBooking = bookingService.approveBooking(
-                createdBooking.getId(), ownerUser.getId(), true);
+                createdBooking.getId(), ownerUser.getId(), true, null);
 
         assertEquals(BookingStatus.APPROVED, approvedBooking.getStatus());
 
@@ -127,7 +213,7 @@ public class BookingServiceImplTest {
         BookingDto createdBooking = bookingService.createBooking(request, bookerUser.getId());
 
         BookingDto rejectedBooking = bookingService.approveBooking(
-                createdBooking.getId(), ownerUser.getId(), false);
+                createdBooking.getId(), ownerUser.getId(), false, null);
 
         assertEquals(BookingStatus.REJECTED, rejectedBooking.getStatus());
     }
@@ -183,7 +269,8 @@ public class BookingServiceImplTest {
         bookingService.createBooking(request1, bookerUser.getId());
         bookingService.createBooking(request2, bookerUser.getId());
 
-        List<BookingDto> userBookings = bookingService.getBookingsByUserId(bookerUser.getId());
+        List<BookingDto> userBookings = bookingService.getBookingsByUserAndState(
+                bookerUser.getId(), BookingState.ALL, null, 10, FieldSet.ALL).rows();
 
         assertEquals(2, userBookings.size());
         assertTrue(userBookings.stream().allMatch(
@@ -198,7 +285,8 @@ public class BookingServiceImplTest {
         request.setEnd(LocalDateTime.now().plusDays(2));
         bookingService.createBooking(request, bookerUser.getId());
 
-        List<BookingDto> ownerBookings = bookingService.getBookingsByOwnerId(ownerUser.getId());
+        List<BookingDto> ownerBookings = bookingService.getBookingsByOwnerAndState(
+                ownerUser.getId(), BookingState.ALL, null, 10).rows();
 
         assertEquals(1, ownerBookings.size());
         assertEquals(testItem.getId(), ownerBookings.getFirst().getItem().id());
@@ -213,9 +301,298 @@ public class BookingServiceImplTest {
         BookingDto waitingBooking = bookingService.createBooking(waitingRequest, bookerUser.getId());
 
         List<BookingDto> allBookings = bookingService.getBookingsByUserAndState(
-                bookerUser.getId(), BookingState.ALL);
+                bookerUser.getId(), BookingState.ALL, null, 10, FieldSet.ALL).rows();
 
         assertEquals(1, allBookings.size());
         assertEquals(waitingBooking.getId(), allBookings.getFirst().getId());
     }
-}
\ No newline at end of file
+
+    @Test
+    void getBookingsByOwnerAndStateWithCursor() {
+        for (int i = 1; i <= 5; i++) {
+            CreateBookingRequest request = new CreateBookingRequest();
+            request.setItemId(testItem.getId());
+            request.setStart(LocalDateTime.now().plusDays(i * 2));
+            request.setEnd(LocalDateTime.now().plusDays(i * 2 + 1));
+            bookingService.createBooking(request, bookerUser.getId());
+        }
+
+        KeysetPage<BookingDto> firstPage = bookingService.getBookingsByOwnerAndState(
+                ownerUser.getId(), BookingState.FUTURE, null, 2);
+        assertEquals(2, firstPage.rows().size());
+        assertNotNull(firstPage.nextCursor());
+
+        KeysetPage<BookingDto> secondPage = bookingService.getBookingsByOwnerAndState(
+                ownerUser.getId(), BookingState.FUTURE, firstPage.nextCursor(), 2);
+        KeysetPage<BookingDto> lastPage = bookingService.getBookingsByOwnerAndState(
+                ownerUser.getId(), BookingState.FUTURE, secondPage.nextCursor(), 2);
+        assertEquals(2, secondPage.rows().size());
+        assertEquals(1, lastPage.rows().size());
+        assertNull(lastPage.nextCursor());
+
+        List<BookingDto> all = new ArrayList<>(firstPage.rows());
+        all.addAll(secondPage.rows());
+        all.addAll(lastPage.rows());
+        assertEquals(5, all.stream().map(BookingDto::getId).distinct().count());
+        for (int i = 1; i < all.size(); i++) {
+            assertTrue(all.get(i - 1).getStart().isAfter(all.get(i).getStart()));
+        }
+
+        assertThrows(ValidationException.class, () -> bookingService.getBookingsByOwnerAndState(
+                ownerUser.getId(), BookingState.ALL, "not-a-cursor", 2));
+    }
+
+    @Test
+    void createOverlappingBookingTest() {
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        BookingDto first = bookingService.createBooking(bookingRequest(start, start.plusDays(2)), bookerUser.getId());
+
+        assertThrows(ValidationException.class, () -> bookingService.createBooking(
+                bookingRequest(start.plusDays(1), start.plusDays(3)), bookerUser.getId()));
+        assertThrows(ValidationException.class, () -> bookingService.createBooking(
+                bookingRequest(start.minusHours(1), start.plusHours(1)), bookerUser.getId()));
+
+        BookingDto adjacent = bookingService.createBooking(
+                bookingRequest(start.plusDays(2), start.plusDays(3)), bookerUser.getId());
+        assertNotNull(adjacent.getId());
+
+        bookingService.approveBooking(first.getId(), ownerUser.getId(), false, null);
+        BookingDto afterReject = bookingService.createBooking(
+                bookingRequest(start.plusHours(1), start.plusDays(1)), bookerUser.getId());
+        assertEquals(BookingStatus.WAITING, afterReject.getStatus());
+    }
+
+    @Test
+    void createBookingsAtomicTest() {
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        List<CreateBookingRequest> requests = List.of(
+                bookingRequest(start, start.plusDays(1)),
+                bookingRequest(start.plusDays(1), start.plusDays(2)),
+                bookingRequest(start.plusHours(12), start.plusDays(1).plusHours(12)));
+
+        BookingBatchResultDto refused = bookingService.createBookings(
+                requests, bookerUser.getId(), BookingBatchMode.ATOMIC);
+        assertFalse(refused.isApplied());
+        assertEquals(0, refused.getCreated());
+        assertNull(refused.getResults().get(0).getError());
+        assertNotNull(refused.getResults().get(2).getError());
+        assertTrue(bookingService.getBookingsByUserAndState(
+                bookerUser.getId(), BookingState.ALL, null, 10, FieldSet.ALL).rows().isEmpty());
+
+        BookingBatchResultDto created = bookingService.createBookings(
+                requests.subList(0, 2), bookerUser.getId(), BookingBatchMode.ATOMIC);
+        assertTrue(created.isApplied());
+        assertEquals(2, created.getCreated());
+        assertEquals(2, bookingService.getBookingsByUserAndState(
+                bookerUser.getId(), BookingState.ALL, null, 10, FieldSet.ALL).rows().size());
+        assertThrows(ValidationException.class, () -> bookingService.createBooking(
+                bookingRequest(start.plusHours(1), start.plusHours(2)), bookerUser.getId()));
+    }
+
+    @Test
+    void createBookingsPartialTest() {
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        bookingService.createBooking(bookingRequest(start, start.plusDays(1)), bookerUser.getId());
+
+        CreateBookingRequest missingItem = bookingRequest(start, start.plusDays(1));
+        missingItem.setItemId(Long.MAX_VALUE);
+        CreateBookingRequest noEnd = bookingRequest(start.plusDays(3), null);
+        BookingBatchResultDto result = bookingService.createBookings(List.of(
+                bookingRequest(start.plusHours(1), start.plusHours(2)),
+                bookingRequest(start.plusDays(1), start.plusDays(2)),
+                missingItem,
+                noEnd,
+                bookingRequest(start.plusDays(2), start.plusDays(3))), bookerUser.getId(), BookingBatchMode.PARTIAL);
+
+        assertTrue(result.isApplied());
+        assertEquals(2, result.getCreated());
+        assertEquals(List.of(false, true, false, false, true), result.getResults().stream()
+                .map(entry -> entry.getBooking() != null)
+                .toList());
+        assertEquals("Item not found", result.getResults().get(2).getError());
+        assertEquals(BookingStatus.WAITING, bookingRepository.findById(
+                result.getResults().get(4).getBooking().getId()).orElseThrow().getStatus());
+        assertThrows(ValidationException.class, () -> bookingService.createBookings(
+                List.of(), bookerUser.getId(), BookingBatchMode.PARTIAL));
+    }
+
+    @Test
+    void createBookingsNullEntryTest() {
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        List<CreateBookingRequest> requests = Arrays.asList(bookingRequest(start, start.plusDays(1)), null);
+
+        BookingBatchResultDto refused = bookingService.createBookings(
+                requests, bookerUser.getId(), BookingBatchMode.ATOMIC);
+        assertFalse(refused.isApplied());
+        assertEquals("Booking must not be null", refused.getResults().get(1).getError());
+
+        BookingBatchResultDto partial = bookingService.createBookings(
+                requests, bookerUser.getId(), BookingBatchMode.PARTIAL);
+        assertTrue(partial.isApplied());
+        assertEquals(1, partial.getCreated());
+        assertEquals("Booking must not be null", partial.getResults().get(1).getError());
+    }
+
+    @Test
+    void approveBookingsTest() {
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        BookingDto first = bookingService.createBooking(bookingRequest(start, start.plusDays(1)), bookerUser.getId());
+        BookingDto second = bookingService.createBooking(
+                bookingRequest(start.plusDays(1), start.plusDays(2)), bookerUser.getId());
+        BookingDto third = bookingService.createBooking(
+                bookingRequest(start.plusDays(3), start.plusDays(4)), bookerUser.getId());
+
+        assertThrows(ValidationException.class, () -> bookingService.approveBookings(
+                List.of(decision(first.getId(), true)), bookerUser.getId()));
+        assertThrows(ValidationException.class, () -> bookingService.approveBookings(
+                List.of(decision(first.getId(), true), decision(first.getId(), false)), ownerUser.getId()));
+
+        List<BookingDto> decided = bookingService.approveBookings(List.of(
+                decision(second.getId(), true),
+                decision(first.getId(), true),
+                decision(third.getId(), false)), ownerUser.getId());
+
+        assertEquals(List.of(second.getId(), first.getId(), third.getId()),
+                decided.stream().map(BookingDto::getId).toList());
+        assertEquals(BookingStatus.APPROVED, bookingRepository.findById(first.getId()).orElseThrow().getStatus());
+        assertEquals(BookingStatus.APPROVED, bookingRepository.findById(second.getId()).orElseThrow().getStatus());
+        assertEquals(BookingStatus.REJECTED, bookingRepository.findById(third.getId()).orElseThrow().getStatus());
+        assertThrows(ValidationException.class, () -> bookingService.approveBookings(
+                List.of(decision(third.getId(), true)), ownerUser.getId()));
+    }
+
+    @Test
+    void bookingPhaseSweepTest() {
+        LocalDateTime now = LocalDateTime.now();
+        BookingDto booking = bookingService.createBooking(
+                bookingRequest(now.plusDays(1), now.plusDays(2)), bookerUser.getId());
+        assertEquals(BookingPhase.FUTURE, bookingRepository.findById(booking.getId()).orElseThrow().getPhase());
+
+        bookingPhaseSweeper.sweep(now.plusDays(1).plusHours(1));
+        assertEquals(0, bookingPhaseSweeper.sweep(now.plusDays(1).plusHours(1)));
+        assertEquals(List.of(booking.getId()), bookingService.getBookingsByUserAndState(
+                bookerUser.getId(), BookingState.CURRENT, null, 10, FieldSet.ALL).rows().stream()
+                .map(BookingDto::getId).toList());
+        assertTrue(bookingService.getBookingsByOwnerAndState(
+                ownerUser.getId(), BookingState.FUTURE, null, 10).rows().isEmpty());
+
+        bookingPhaseSweeper.sweep(now.plusDays(3));
+        assertEquals(List.of(booking.getId()), bookingService.getBookingsByOwnerAndState(
+                ownerUser.getId(), BookingState.PAST, null, 10).rows().stream().map(BookingDto::getId).toList());
+        assertTrue(bookingService.getBookingsByUserAndState(
+                bookerUser.getId(), BookingState.CURRENT, null, 10, FieldSet.ALL).rows().isEmpty());
+    }
+
+    @Test
+    void bookingPhaseSweepSkippingCurrentReportsEndedBookingTest() {
+        LocalDateTime now = LocalDateTime.now();
+        BookingDto booking = bookingService.createBooking(
+                bookingRequest(now.plusDays(1), now.plusDays(2)), bookerUser.getId());
+        bookingService.approveBooking(booking.getId(), ownerUser.getId(), true, null);
+
+        assertEquals(List.of(new BookerItem(bookerUser.getId(), testItem.getId())),
+                bookingRepository.findEndingApproved(now.plusDays(3)));
+        assertEquals(1, bookingPhaseSweeper.sweep(now.plusDays(3)));
+        assertEquals(List.of(booking.getId()), bookingService.getBookingsByOwnerAndState(
+                ownerUser.getId(), BookingState.PAST, null, 10).rows().stream().map(BookingDto::getId).toList());
+        assertTrue(bookingRepository.findEndingApproved(now.plusDays(3)).isEmpty());
+    }
+
+    @Test
+    void expireStaleWaitingBookingsTest() {
+        LocalDateTime now = LocalDateTime.now();
+        List<BookingDto> bookings = new ArrayList<>();
+        for (int i = 1; i <= 5; i++) {
+            bookings.add(bookingService.createBooking(
+                    bookingRequest(now.plusDays(i), now.plusDays(i + 1)), bookerUser.getId()));
+        }
+        bookingService.approveBooking(bookings.get(1).getId(), ownerUser.getId(), true, null);
+
+        assertEquals(3, bookingExpiryJob.run(now.plusDays(4).plusHours(1)));
+        assertEquals(0, bookingExpiryJob.run(now.plusDays(4).plusHours(1)));
+
+        List<BookingStatus> statuses = bookings.stream()
+                .map(booking -> bookingRepository.findById(booking.getId()).orElseThrow().getStatus())
+                .toList();
+        assertEquals(List.of(BookingStatus.CANCELLED, BookingStatus.APPROVED, BookingStatus.CANCELLED,
+                BookingStatus.CANCELLED, BookingStatus.WAITING), statuses);
+    }
+
+    @Test
+    void exportBookingsTest() {
+        for (int i = 1; i <= 3; i++) {
+            bookingService.createBooking(bookingRequest(LocalDateTime.now().plusDays(i * 2),
+                    LocalDateTime.now().plusDays(i * 2 + 1)), bookerUser.getId());
+        }
+
+        BookingExport export = bookingService.exportBookingsByOwner(ownerUser.getId());
+        List<BookingDto> exported = new ArrayList<>();
+        export.forEach(exported::add);
+
+        assertEquals(bookingService.getBookingsByOwnerAndState(ownerUser.getId(), BookingState.ALL, null, 10).rows()
+                        .stream().map(BookingDto::getId).toList(),
+                exported.stream().map(BookingDto::getId).toList());
+        List<BookingDto> byBooker = new ArrayList<>();
+        bookingService.exportBookingsByBooker(bookerUser.getId()).forEach(byBooker::add);
+        assertEquals(3, byBooker.size());
+        assertThrows(NotFoundException.class, () -> bookingService.exportBookingsByBooker(Long.MAX_VALUE));
+    }
+
+    @Test
+    void archiveEndedBookingsTest() {
+        LocalDateTime now = LocalDateTime.now();
+        List<BookingDto> bookings = new ArrayList<>();
+        for (int i = 1; i <= 3; i++) {
+            bookings.add(bookingService.createBooking(
+                    bookingRequest(now.plusDays(i), now.plusDays(i + 1)), bookerUser.getId()));
+            bookingService.approveBooking(bookings.getLast().getId(), ownerUser.getId(), i != 2, null);
+        }
+        BookingDto recent = bookingService.createBooking(
+                bookingRequest(now.plusDays(300), now.plusDays(301)), bookerUser.getId());
+        bookingService.approveBooking(recent.getId(), ownerUser.getId(), true, null);
+
+        LocalDateTime later = now.plusDays(400);
+        bookingPhaseSweeper.sweep(later);
+        assertEquals(3, bookingArchiveJob.run(later));
+        assertEquals(0, bookingArchiveJob.run(later));
+
+        assertEquals(List.of(recent.getId()), bookingService.getBookingsByUserAndState(
+                bookerUser.getId(), BookingState.ALL, null, 10, FieldSet.ALL).rows().stream()
+                .map(BookingDto::getId).toList());
+        KeysetPage<BookingDto> history = bookingService.getBookingHistoryByOwnerAndState(
+                ownerUser.getId(), BookingState.ALL, null, 2);
+        assertEquals(List.of(bookings.get(2).getId(), bookings.get(1).getId()),
+                history.rows().stream().map(BookingDto::getId).toList());
+        assertEquals(List.of(bookings.get(0).getId()), bookingService.getBookingHistoryByOwnerAndState(
+                ownerUser.getId(), BookingState.ALL, history.nextCursor(), 2).rows().stream()
+                .map(BookingDto::getId).toList());
+        assertEquals(List.of(bookings.get(1).getId()), bookingService.getBookingHistoryByUserAndState(
+                bookerUser.getId(), BookingState.REJECTED, null, 10).rows().stream()
+                .map(BookingDto::getId).toList());
+        assertTrue(bookingService.getBookingHistoryByUserAndState(
+                bookerUser.getId(), BookingState.FUTURE, null, 10).rows().isEmpty());
+
+        List<BookingDto> exported = new ArrayList<>();
+        bookingService.exportBookingsByOwner(ownerUser.getId()).forEach(exported::add);
+        assertEquals(List.of(recent.getId(), bookings.get(2).getId(), bookings.get(1).getId(),
+                bookings.get(0).getId()), exported.stream().map(BookingDto::getId).toList());
+        List<BookingDto> exportedByBooker = new ArrayList<>();
+        bookingService.exportBookingsByBooker(bookerUser.getId()).forEach(exportedByBooker::add);
+        assertEquals(4, exportedByBooker.size());
+    }
+
+    private BookingDecisionRequest decision(Long bookingId, boolean approved) {
+        BookingDecisionRequest decision = new BookingDecisionRequest();
+        decision.setBookingId(bookingId);
+        decision.setApproved(approved);
+        return decision;
+    }
+
+    private CreateBookingRequest bookingRequest(LocalDateTime start, LocalDateTime end) {
+        CreateBookingRequest request = new CreateBookingRequest();
+        request.setItemId(testItem.getId());
+        request.setStart(start);
+        request.setEnd(end);
+        return request;
+    }
+}
@@ -1,5 +1,7 @@
 package ru.practicum.shareit.item;
 
+import jakarta.persistence.EntityManager;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.BeforeEach;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -8,9 +10,14 @@ import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.shareit.booking.BookingRepository;
+import ru.practicum.shareit.booking.BookingService;
 import ru.practicum.shareit.booking.BookingStatus;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.CreateBookingRequest;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.exception.PreconditionFailedException;
+import ru.practicum.shareit.exception.ValidationException;
 import ru.practicum.shareit.item.dto.*;
 import ru.practicum.shareit.item.model.Comment;
 import ru.practicum.shareit.item.model.Item;
@@ -18,8 +25,15 @@ import ru.practicum.shareit.user.UserService;
 import ru.practicum.shareit.user.dto.CreateUserRequest;
 import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.util.EntityTags;
+import ru.practicum.shareit.util.FieldSet;
+import ru.practicum.shareit.util.KeysetPage;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.IntStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -44,6 +58,15 @@ public class ItemServiceImplTest {
     @Autowired
     private BookingRepository bookingRepository;
 
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private EntityManager entityManager;
+
     private UserDto ownerUser;
     private UserDto regularUser;
 
@@ -97,7 +120,7 @@ public class ItemServiceImplTest {
         updateRequest.setDescription("Updated Description");
         updateRequest.setAvailable(false);
 
-        ItemDto updatedItem = itemService.updateItem(updateRequest, ownerUser.getId(), createdItem.getId());
+        ItemDto updatedItem = itemService.updateItem(updateRequest, ownerUser.getId(), createdItem.getId(), null);
 
         assertEquals(createdItem.getId(), updatedItem.getId());
         assertEquals("Updated Name", updatedItem.getName());
@@ -105,6 +128,74 @@ public class ItemServiceImplTest {
         assertFalse(updatedItem.getAvailable());
     }
 
+    @Test
+    void updateItemPartiallyTest() {
+        CreateItemRequest createRequest = new CreateItemRequest();
+        createRequest.setName("Patched Item");
+        createRequest.setDescription("Original Description");
+        createRequest.setAvailable(true);
+        ItemDto createdItem = itemService.createItem(createRequest, ownerUser.getId());
+        itemRepository.flush();
+        Long version = itemService.getItemById(createdItem.getId()).getVersion();
+
+        UpdateItemRequest updateRequest = new UpdateItemRequest();
+        updateRequest.setDescription("Patched Description");
+        ItemDto updatedItem = itemService.updateItem(updateRequest, ownerUser.getId(), createdItem.getId(), version);
+        itemRepository.flush();
+
+        assertEquals("Patched Item", updatedItem.getName());
+        assertEquals("Patched Description", updatedItem.getDescription());
+        assertTrue(updatedItem.getAvailable());
+        assertEquals(version + 1, itemService.getItemById(createdItem.getId()).getVersion());
+
+        // nothing changes, so nothing is written
+        UpdateItemRequest sameName = new UpdateItemRequest();
+        sameName.setName("Patched Item");
+        itemService.updateItem(sameName, ownerUser.getId(), createdItem.getId(), null);
+        itemRepository.flush();
+        assertEquals(version + 1, itemService.getItemById(createdItem.getId()).getVersion());
+
+        assertThrows(ValidationException.class, () -> itemService.updateItem(updateRequest,
+                regularUser.getId(), createdItem.getId(), null));
+        assertThrows(NotFoundException.class, () -> itemService.updateItem(updateRequest,
+                ownerUser.getId(), -1L, null));
+    }
+
+    @Test
+    void getItemETagTest() {
+        CreateItemRequest request = new CreateItemRequest();
+        request.setName("Tagged Item");
+        request.setDescription("Item with an entity tag");
+        request.setAvailable(true);
+        ItemDto createdItem = itemService.createItem(request, ownerUser.getId());
+
+        String publicTag = itemService.getItemETag(createdItem.getId(), regularUser.getId());
+        String ownerTag = itemService.getItemETag(createdItem.getId(), ownerUser.getId());
+        assertNotEquals(publicTag, ownerTag);
+        assertEquals(publicTag, itemService.getItemETag(createdItem.getId(), regularUser.getId()));
+
+        CreateBookingRequest bookingRequest = new CreateBookingRequest();
+        bookingRequest.setItemId(createdItem.getId());
+        bookingRequest.setStart(LocalDateTime.now().plusDays(1));
+        bookingRequest.setEnd(LocalDateTime.now().plusDays(2));
+        BookingDto booking = bookingService.createBooking(bookingRequest, regularUser.getId());
+        assertEquals(ownerTag, itemService.getItemETag(createdItem.getId(), ownerUser.getId()));
+        bookingService.approveBooking(booking.getId(), ownerUser.getId(), true, null);
+        assertEquals(publicTag, itemService.getItemETag(createdItem.getId(), regularUser.getId()));
+        String approvedTag = itemService.getItemETag(createdItem.getId(), ownerUser.getId());
+        assertNotEquals(ownerTag, approvedTag);
+        itemService.getItemDtoById(createdItem.getId(), ownerUser.getId());
+        assertEquals(approvedTag, itemService.getItemETag(createdItem.getId(), ownerUser.getId()));
+
+        UpdateItemRequest updateRequest = new UpdateItemRequest();
+        updateRequest.setName("Renamed Item");
+        itemService.updateItem(updateRequest, ownerUser.getId(), createdItem.getId(),
+                EntityTags.parseVersion(publicTag));
+        assertNotEquals(publicTag, itemService.getItemETag(createdItem.getId(), regularUser.getId()));
+        assertThrows(PreconditionFailedException.class, () -> itemService.updateItem(updateRequest,
+                ownerUser.getId(), createdItem.getId(), EntityTags.parseVersion(publicTag)));
+    }
+
     @Test
     void getItemDtoByIdTest() {
         CreateItemRequest request = new CreateItemRequest();
@@ -113,31 +204,81 @@ public class ItemServiceImplTest {
         request.setAvailable(true);
         ItemDto createdItem = itemService.createItem(request, ownerUser.getId());
 
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
         Item item = itemService.getItemById(createdItem.getId());
         User booker = userService.getUserById(regularUser.getId());
 
-        Booking pastBooking = new Booking();
-        pastBooking.setStart(LocalDateTime.now().minusDays(2));
-        pastBooking.setEnd(LocalDateTime.now().minusDays(1));
-        pastBooking.setStatus(BookingStatus.APPROVED);
-        pastBooking.setItem(item);
-        pastBooking.setBooker(booker);
-        bookingRepository.save(pastBooking);
+        Booking pastBooking = saveBooking(item, booker, now.minusDays(3), now.minusDays(2), BookingStatus.APPROVED);
+        Booking futureBooking = saveBooking(item, booker, now.plusDays(3), now.plusDays(4), BookingStatus.APPROVED);
+        // saved later, so ordering by id instead of by time would pick them
+        saveBooking(item, booker, now.minusDays(6), now.minusDays(5), BookingStatus.APPROVED);
+        saveBooking(item, booker, now.plusDays(6), now.plusDays(7), BookingStatus.APPROVED);
+        // not approved, so they must not count although they are closer to now
+        saveBooking(item, booker, now.minusDays(2), now.minusDays(1), BookingStatus.REJECTED);
+        saveBooking(item, booker, now.plusDays(1), now.plusDays(2), BookingStatus.WAITING);
 
-        Booking futureBooking = new Booking();
-        futureBooking.setStart(LocalDateTime.now().plusDays(1));
-        futureBooking.setEnd(LocalDateTime.now().plusDays(2));
-        futureBooking.setStatus(BookingStatus.APPROVED);
-        futureBooking.setItem(item);
-        futureBooking.setBooker(booker);
-        bookingRepository.save(futureBooking);
+        CreateCommentRequest commentRequest = new CreateCommentRequest();
+        commentRequest.setText("First");
+        itemService.createComment(commentRequest, createdItem.getId(), regularUser.getId());
+        commentRequest.setText("Second");
+        itemService.createComment(commentRequest, createdItem.getId(), regularUser.getId());
 
         ItemDto result = itemService.getItemDtoById(createdItem.getId(), ownerUser.getId());
 
         assertNotNull(result);
         assertEquals(createdItem.getId(), result.getId());
-        assertNotNull(result.getLastBooking());
-        assertNotNull(result.getNextBooking());
+        assertEquals("Bookable Item", result.getName());
+        assertEquals(pastBooking.getEnd(), result.getLastBooking());
+        assertEquals(futureBooking.getStart(), result.getNextBooking());
+        assertEquals(List.of("Second", "First"), result.getComments().stream().map(CommentDto::getText).toList());
+        assertEquals(2, result.getCommentCount());
+        assertTrue(result.getComments().stream().allMatch(comment -> "Regular User".equals(comment.getAuthorName())));
+
+        ItemDto publicView = itemService.getItemDtoById(createdItem.getId(), regularUser.getId());
+        assertNull(publicView.getLastBooking());
+        assertNull(publicView.getNextBooking());
+        assertEquals(2, publicView.getComments().size());
+        assertThrows(NotFoundException.class, () -> itemService.getItemDtoById(-1L, ownerUser.getId()));
+    }
+
+    @Test
+    void itemViewCacheTest() {
+        CreateItemRequest request = new CreateItemRequest();
+        request.setName("Cached Item");
+        request.setDescription("Item read from the view cache");
+        request.setAvailable(true);
+        ItemDto createdItem = itemService.createItem(request, ownerUser.getId());
+        Item item = itemService.getItemById(createdItem.getId());
+        saveBooking(item, userService.getUserById(regularUser.getId()),
+                LocalDateTime.now().minusDays(2), LocalDateTime.now().minusDays(1), BookingStatus.APPROVED);
+
+        double hits = cacheGets("hit");
+        double misses = cacheGets("miss");
+        ItemDto publicView = itemService.getItemDtoById(createdItem.getId(), regularUser.getId());
+        assertSame(publicView, itemService.getItemDtoById(createdItem.getId(), regularUser.getId()));
+        ItemDto ownerView = itemService.getItemDtoById(createdItem.getId(), ownerUser.getId());
+        assertNotSame(publicView, ownerView);
+        assertNotNull(ownerView.getLastBooking());
+        assertEquals(hits + 1, cacheGets("hit"));
+        assertEquals(misses + 2, cacheGets("miss"));
+
+        CreateCommentRequest commentRequest = new CreateCommentRequest();
+        commentRequest.setText("Cached comment");
+        itemService.createComment(commentRequest, createdItem.getId(), regularUser.getId());
+        assertEquals(1, itemService.getItemDtoById(createdItem.getId(), regularUser.getId()).getComments().size());
+        assertEquals(1, itemService.getItemDtoById(createdItem.getId(), ownerUser.getId()).getComments().size());
+
+        publicView = itemService.getItemDtoById(createdItem.getId(), regularUser.getId());
+        CreateBookingRequest bookingRequest = new CreateBookingRequest();
+        bookingRequest.setItemId(createdItem.getId());
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        bookingRequest.setStart(now.plusDays(1));
+        bookingRequest.setEnd(now.plusDays(2));
+        BookingDto booking = bookingService.createBooking(bookingRequest, regularUser.getId());
+        bookingService.approveBooking(booking.getId(), ownerUser.getId(), true, null);
+        assertSame(publicView, itemService.getItemDtoById(createdItem.getId(), regularUser.getId()));
+        assertEquals(booking.getStart(), itemService.getItemDtoById(createdItem.getId(), ownerUser.getId())
+                .getNextBooking());
     }
 
     @Test
@@ -171,13 +312,134 @@ public class ItemServiceImplTest {
         itemService.createItem(request1, ownerUser.getId());
         itemService.createItem(request2, ownerUser.getId());
 
-        List<ItemDto> userItems = itemService.getItemsByUserId(ownerUser.getId());
+        List<ItemDto> userItems = itemService.getItemsByUserId(ownerUser.getId(), FieldSet.ALL);
 
         assertEquals(2, userItems.size());
         assertTrue(userItems.stream().anyMatch(item -> item.getName().equals("Item 1")));
         assertTrue(userItems.stream().anyMatch(item -> item.getName().equals("Item 2")));
     }
 
+    @Test
+    void getItemsByUserIdWithBookingsAndComments() {
+        CreateItemRequest request = new CreateItemRequest();
+        request.setName("Owned Item");
+        request.setDescription("Description");
+        request.setAvailable(true);
+        ItemDto bookedItem = itemService.createItem(request, ownerUser.getId());
+        ItemDto idleItem = itemService.createItem(request, ownerUser.getId());
+
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        Item item = itemService.getItemById(bookedItem.getId());
+        User booker = userService.getUserById(regularUser.getId());
+
+        Booking pastBooking = new Booking();
+        pastBooking.setStart(now.minusDays(2));
+        pastBooking.setEnd(now.minusDays(1));
+        pastBooking.setStatus(BookingStatus.APPROVED);
+        pastBooking.setItem(item);
+        pastBooking.setBooker(booker);
+        bookingRepository.save(pastBooking);
+
+        Booking futureBooking = new Booking();
+        futureBooking.setStart(now.plusDays(1));
+        futureBooking.setEnd(now.plusDays(2));
+        futureBooking.setStatus(BookingStatus.APPROVED);
+        futureBooking.setItem(item);
+        futureBooking.setBooker(booker);
+        bookingRepository.save(futureBooking);
+
+        CreateCommentRequest commentRequest = new CreateCommentRequest();
+        commentRequest.setText("Works fine");
+        itemService.createComment(commentRequest, bookedItem.getId(), regularUser.getId());
+
+        List<ItemDto> userItems = itemService.getItemsByUserId(ownerUser.getId(), FieldSet.ALL);
+
+        ItemDto booked = userItems.stream()
+                .filter(itemDto -> itemDto.getId().equals(bookedItem.getId()))
+                .findFirst()
+                .orElseThrow();
+        assertEquals(pastBooking.getEnd(), booked.getLastBooking());
+        assertEquals(futureBooking.getStart(), booked.getNextBooking());
+        assertEquals(1, booked.getComments().size());
+        assertEquals("Regular User", booked.getComments().iterator().next().getAuthorName());
+
+        ItemDto idle = userItems.stream()
+                .filter(itemDto -> itemDto.getId().equals(idleItem.getId()))
+                .findFirst()
+                .orElseThrow();
+        assertNull(idle.getLastBooking());
+        assertNull(idle.getNextBooking());
+        assertTrue(idle.getComments().isEmpty());
+    }
+
+    @Test
+    void getItemsByUserIdWithFieldsTest() {
+        CreateItemRequest request = new CreateItemRequest();
+        request.setName("Owned Item");
+        request.setDescription("Description");
+        request.setAvailable(true);
+        ItemDto created = itemService.createItem(request, ownerUser.getId());
+
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        Booking booking = saveBooking(itemService.getItemById(created.getId()), userService.getUserById(regularUser.getId()),
+                now.minusDays(2), now.minusDays(1), BookingStatus.APPROVED);
+        CreateCommentRequest commentRequest = new CreateCommentRequest();
+        commentRequest.setText("Works fine");
+        itemService.createComment(commentRequest, created.getId(), regularUser.getId());
+
+        ItemDto shortItem = itemService.getItemsByUserId(ownerUser.getId(),
+                FieldSet.parse("id,name", ItemDto.class)).getFirst();
+        assertEquals(created.getId(), shortItem.getId());
+        assertEquals("Owned Item", shortItem.getName());
+        assertNull(shortItem.getDescription());
+        assertNull(shortItem.getComments());
+
+        ItemDto withDates = itemService.getItemsByUserId(ownerUser.getId(),
+                FieldSet.parse("id,lastBooking", ItemDto.class)).getFirst();
+        assertEquals(booking.getEnd(), withDates.getLastBooking());
+        assertNull(withDates.getNextBooking());
+        assertNull(withDates.getComments());
+
+        assertThrows(ValidationException.class, () -> FieldSet.parse("id,version", ItemDto.class));
+    }
+
+    @Test
+    void getItemDtosByIdsTest() {
+        CreateItemRequest request = new CreateItemRequest();
+        request.setName("Owned Item");
+        request.setDescription("Description");
+        request.setAvailable(true);
+        ItemDto first = itemService.createItem(request, ownerUser.getId());
+        ItemDto second = itemService.createItem(request, ownerUser.getId());
+        ItemDto foreign = itemService.createItem(request, regularUser.getId());
+
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        Booking booking = saveBooking(itemService.getItemById(first.getId()), userService.getUserById(regularUser.getId()),
+                now.minusDays(2), now.minusDays(1), BookingStatus.APPROVED);
+        CreateCommentRequest commentRequest = new CreateCommentRequest();
+        commentRequest.setText("Works fine");
+        itemService.createComment(commentRequest, first.getId(), regularUser.getId());
+
+        List<ItemDto> items = itemService.getItemDtosByIds(
+                Set.of(foreign.getId(), second.getId(), first.getId()), ownerUser.getId(), FieldSet.ALL);
+
+        assertEquals(List.of(first.getId(), second.getId(), foreign.getId()),
+                items.stream().map(ItemDto::getId).toList());
+        assertEquals(booking.getEnd(), items.get(0).getLastBooking());
+        assertEquals("Regular User", items.get(0).getComments().getFirst().getAuthorName());
+        assertEquals(1, items.get(0).getCommentCount());
+        assertTrue(items.get(1).getComments().isEmpty());
+
+        List<ItemDto> seenByOther = itemService.getItemDtosByIds(Set.of(first.getId()), regularUser.getId(), FieldSet.ALL);
+        assertNull(seenByOther.getFirst().getLastBooking());
+        assertEquals(1, seenByOther.getFirst().getComments().size());
+
+        assertThrows(NotFoundException.class,
+                () -> itemService.getItemDtosByIds(Set.of(first.getId(), 9999L), ownerUser.getId(),
+                        FieldSet.ALL));
+        assertThrows(ValidationException.class, () -> itemService.getItemDtosByIds(Set.of(), ownerUser.getId(), FieldSet.ALL));
+    }
+
     @Test
     void findItemsTest() {
         CreateItemRequest request1 = new CreateItemRequest();
@@ -199,13 +461,229 @@ public class ItemServiceImplTest {
         itemService.createItem(request2, ownerUser.getId());
         itemService.createItem(request3, ownerUser.getId());
 
-        List<ItemDto> foundItems = itemService.findItems("drill", regularUser.getId());
+        List<ItemDto> foundItems = itemService.findItems("drill", regularUser.getId(), 0, 20);
 
         assertEquals(2, foundItems.size());
         assertTrue(foundItems.stream().anyMatch(item -> item.getName().contains("Drill")));
         assertTrue(foundItems.stream().noneMatch(item -> item.getName().equals("Hammer")));
     }
 
+    @Test
+    void findItemsPagedTest() {
+        for (int i = 1; i <= 3; i++) {
+            CreateItemRequest request = new CreateItemRequest();
+            request.setName("Ladder " + i);
+            request.setDescription("Folding ladder");
+            request.setAvailable(true);
+            itemService.createItem(request, ownerUser.getId());
+        }
+
+        CreateItemRequest unavailable = new CreateItemRequest();
+        unavailable.setName("Ladder hidden");
+        unavailable.setDescription("Not for rent");
+        unavailable.setAvailable(false);
+        itemService.createItem(unavailable, ownerUser.getId());
+
+        List<ItemDto> firstPage = itemService.findItems("ladder", regularUser.getId(), 0, 2);
+        List<ItemDto> secondPage = itemService.findItems("ladder", regularUser.getId(), 2, 2);
+
+        assertEquals(2, firstPage.size());
+        assertEquals(1, secondPage.size());
+        assertEquals(List.of("Ladder 2", "Ladder 3"), itemService.findItems("ladder", regularUser.getId(), 1, 2)
+                .stream()
+                .map(ItemDto::getName)
+                .toList());
+        assertTrue(itemService.findItems(" ", regularUser.getId(), 0, 2).isEmpty());
+        assertThrows(ValidationException.class,
+                () -> itemService.findItems("ladder", regularUser.getId(), -1, 2));
+    }
+
+    @Test
+    void getItemAvailabilityTest() {
+        CreateItemRequest request = new CreateItemRequest();
+        request.setName("Calendar Item");
+        request.setDescription("Item with bookings");
+        request.setAvailable(true);
+        ItemDto createdItem = itemService.createItem(request, ownerUser.getId());
+
+        Item item = itemService.getItemById(createdItem.getId());
+        User booker = userService.getUserById(regularUser.getId());
+        LocalDateTime from = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.DAYS);
+        LocalDateTime to = from.plusDays(10);
+
+        saveBooking(item, booker, from.plusDays(1), from.plusDays(3), BookingStatus.APPROVED);
+        saveBooking(item, booker, from.plusDays(2), from.plusDays(4), BookingStatus.WAITING);
+        saveBooking(item, booker, from.plusDays(5), from.plusDays(6), BookingStatus.REJECTED);
+        saveBooking(item, booker, from.plusDays(9), from.plusDays(12), BookingStatus.APPROVED);
+
+        ItemAvailabilityDto availability = itemService.getItemAvailability(item.getId(), regularUser.getId(), from, to);
+
+        assertEquals(List.of(new TimeSlotDto(from.plusDays(1), from.plusDays(4)),
+                new TimeSlotDto(from.plusDays(9), to)), availability.getBusy());
+        assertEquals(List.of(new TimeSlotDto(from, from.plusDays(1)),
+                new TimeSlotDto(from.plusDays(4), from.plusDays(9))), availability.getFree());
+        assertThrows(ValidationException.class,
+                () -> itemService.getItemAvailability(item.getId(), regularUser.getId(), to, from));
+        assertThrows(NotFoundException.class,
+                () -> itemService.getItemAvailability(-1L, regularUser.getId(), from, to));
+    }
+
+    @Test
+    void getItemAvailabilityPartlyInPastTest() {
+        Item item = itemService.getItemById(createAvailableItem("Returned").getId());
+        User booker = userService.getUserById(regularUser.getId());
+        LocalDateTime from = LocalDateTime.now().minusDays(3).truncatedTo(ChronoUnit.SECONDS);
+        LocalDateTime to = from.plusDays(5);
+        saveBooking(item, booker, from, from.plusDays(1), BookingStatus.APPROVED);
+        saveBooking(item, booker, to.minusDays(1), to, BookingStatus.APPROVED);
+
+        LocalDateTime before = LocalDateTime.now();
+        ItemAvailabilityDto availability = itemService.getItemAvailability(item.getId(), regularUser.getId(), from, to);
+
+        assertFalse(availability.getFrom().isBefore(before));
+        assertEquals(List.of(new TimeSlotDto(to.minusDays(1), to)), availability.getBusy());
+        assertEquals(List.of(new TimeSlotDto(availability.getFrom(), to.minusDays(1))), availability.getFree());
+        assertEquals(List.of(new ItemWindowStatusDto(item.getId(), true)), itemService.getItemsAvailability(
+                Set.of(item.getId()), regularUser.getId(), from, to.minusDays(1)));
+        assertThrows(ValidationException.class, () -> itemService.getItemAvailability(
+                item.getId(), regularUser.getId(), from, from.plusDays(1)));
+    }
+
+    @Test
+    void getItemsAvailabilityTest() {
+        Item booked = itemService.getItemById(createAvailableItem("Booked").getId());
+        Item free = itemService.getItemById(createAvailableItem("Free").getId());
+        CreateItemRequest hiddenRequest = new CreateItemRequest();
+        hiddenRequest.setName("Hidden");
+        hiddenRequest.setDescription("Not for rent");
+        hiddenRequest.setAvailable(false);
+        Long hiddenId = itemService.createItem(hiddenRequest, ownerUser.getId()).getId();
+
+        User booker = userService.getUserById(regularUser.getId());
+        LocalDateTime from = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.DAYS);
+        LocalDateTime to = from.plusDays(2);
+        saveBooking(booked, booker, from.plusDays(1), from.plusDays(3), BookingStatus.WAITING);
+        saveBooking(free, booker, to, to.plusDays(1), BookingStatus.APPROVED);
+
+        List<ItemWindowStatusDto> result = itemService.getItemsAvailability(
+                Set.of(booked.getId(), free.getId(), hiddenId), regularUser.getId(), from, to);
+
+        assertEquals(List.of(new ItemWindowStatusDto(booked.getId(), false),
+                new ItemWindowStatusDto(free.getId(), true),
+                new ItemWindowStatusDto(hiddenId, false)), result);
+        assertThrows(NotFoundException.class, () -> itemService.getItemsAvailability(
+                Set.of(booked.getId(), -1L), regularUser.getId(), from, to));
+    }
+
+    private double cacheGets(String result) {
+        return meterRegistry.get("cache.gets").tag("cache", "itemViews").tag("result", result)
+                .functionCounter().count();
+    }
+
+    private ItemDto createAvailableItem(String name) {
+        CreateItemRequest request = new CreateItemRequest();
+        request.setName(name);
+        request.setDescription("Item for the availability check");
+        request.setAvailable(true);
+        return itemService.createItem(request, ownerUser.getId());
+    }
+
+    private Booking saveBooking(Item item, User booker, LocalDateTime start, LocalDateTime end, BookingStatus status) {
+        Booking booking = new Booking();
+        booking.setStart(start);
+        booking.setEnd(end);
+        booking.setStatus(status);
+        booking.setItem(item);
+        booking.setBooker(booker);
+        return bookingRepository.save(booking);
+    }
+
+    @Test
+    void createCommentEligibilityTest() {
+        ItemDto createdItem = createAvailableItem("Rented Item");
+        Item item = itemService.getItemById(createdItem.getId());
+        User booker = userService.getUserById(regularUser.getId());
+        CreateCommentRequest commentRequest = new CreateCommentRequest();
+        commentRequest.setText("Rented it");
+
+        saveBooking(item, booker, LocalDateTime.now().minusDays(3), LocalDateTime.now().minusDays(2),
+                BookingStatus.REJECTED);
+        saveBooking(item, booker, LocalDateTime.now().minusDays(1), LocalDateTime.now().plusDays(1),
+                BookingStatus.APPROVED);
+        assertThrows(ValidationException.class,
+                () -> itemService.createComment(commentRequest, createdItem.getId(), regularUser.getId()));
+
+        saveBooking(item, booker, LocalDateTime.now().minusDays(5), LocalDateTime.now().minusDays(4),
+                BookingStatus.APPROVED);
+        double hits = meterRegistry.get("cache.gets").tag("cache", "completedBookings").tag("result", "hit")
+                .functionCounter().count();
+        itemService.createComment(commentRequest, createdItem.getId(), regularUser.getId());
+        itemService.createComment(commentRequest, createdItem.getId(), regularUser.getId());
+        assertEquals(hits + 1, meterRegistry.get("cache.gets").tag("cache", "completedBookings")
+                .tag("result", "hit").functionCounter().count());
+        assertThrows(ValidationException.class,
+                () -> itemService.createComment(commentRequest, createdItem.getId(), ownerUser.getId()));
+    }
+
+    @Test
+    void getCommentsTest() {
+        ItemDto createdItem = createAvailableItem("Popular Item");
+        saveBooking(itemService.getItemById(createdItem.getId()), userService.getUserById(regularUser.getId()),
+                LocalDateTime.now().minusDays(2), LocalDateTime.now().minusDays(1), BookingStatus.APPROVED);
+        CreateCommentRequest commentRequest = new CreateCommentRequest();
+        for (int i = 1; i <= 12; i++) {
+            commentRequest.setText("Comment " + i);
+            itemService.createComment(commentRequest, createdItem.getId(), regularUser.getId());
+        }
+
+        ItemDto card = itemService.getItemDtoById(createdItem.getId(), regularUser.getId());
+        assertEquals(12, card.getCommentCount());
+        assertEquals(10, card.getComments().size());
+        assertEquals("Comment 12", card.getComments().getFirst().getText());
+        assertEquals("Comment 3", card.getComments().getLast().getText());
+        assertEquals(10, itemService.getItemsByUserId(ownerUser.getId(), FieldSet.ALL).getFirst().getComments().size());
+
+        List<String> texts = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            KeysetPage<CommentDto> page = itemService.getComments(createdItem.getId(), cursor, 5);
+            page.rows().forEach(comment -> texts.add(comment.getText()));
+            cursor = page.nextCursor();
+            pages++;
+        } while (cursor != null);
+        assertEquals(3, pages);
+        assertEquals(IntStream.rangeClosed(1, 12).map(i -> 13 - i).mapToObj(i -> "Comment " + i).toList(), texts);
+
+        assertThrows(NotFoundException.class, () -> itemService.getComments(-1L, null, 5));
+        assertThrows(ValidationException.class, () -> itemService.getComments(createdItem.getId(), "bad", 5));
+    }
+
+    @Test
+    void deleteCommenterTest() {
+        ItemDto createdItem = createAvailableItem("Reviewed Item");
+        saveBooking(itemService.getItemById(createdItem.getId()), userService.getUserById(regularUser.getId()),
+                LocalDateTime.now().minusDays(2), LocalDateTime.now().minusDays(1), BookingStatus.APPROVED);
+        CreateCommentRequest commentRequest = new CreateCommentRequest();
+        commentRequest.setText("Reviewed");
+        itemService.createComment(commentRequest, createdItem.getId(), regularUser.getId());
+        itemService.createComment(commentRequest, createdItem.getId(), regularUser.getId());
+
+        assertEquals(2, itemService.getItemDtoById(createdItem.getId(), ownerUser.getId()).getCommentCount());
+        String tag = itemService.getItemETag(createdItem.getId(), ownerUser.getId());
+
+        // the booking cascades to its booker, so a managed one would put the deleted user back
+        entityManager.flush();
+        entityManager.clear();
+        userService.deleteUser(regularUser.getId());
+        entityManager.flush();
+
+        ItemDto card = itemService.getItemDtoById(createdItem.getId(), ownerUser.getId());
+        assertEquals(0, card.getCommentCount());
+        assertTrue(card.getComments().isEmpty());
+        assertNotEquals(tag, itemService.getItemETag(createdItem.getId(), ownerUser.getId()));
+    }
+
     @Test
     void createCommentTest() {
         CreateItemRequest itemRequest = new CreateItemRequest();
@@ -252,4 +730,4 @@ public class ItemServiceImplTest {
 
         assertThrows(NotFoundException.class, () -> itemService.getItemById(createdItem.getId()));
     }
-}
\ No newline at end of file
+}
@@ -1,17 +1,34 @@
 package ru.practicum.shareit.user;
 
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManagerFactory;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.search.Search;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.BeforeEach;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.config.HibernateCacheConfig;
 import ru.practicum.shareit.exception.NotFoundException;
+import ru.practicum.shareit.exception.PreconditionFailedException;
+import ru.practicum.shareit.exception.ValidationException;
+import ru.practicum.shareit.item.ItemService;
+import ru.practicum.shareit.item.dto.CreateItemRequest;
+import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.user.dto.CreateUserRequest;
 import ru.practicum.shareit.user.dto.UpdateUserRequest;
 import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.util.EntityTags;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -27,6 +44,18 @@ public class UserServiceImplTest {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private ItemService itemService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
     @BeforeEach
     void setUp() {
         userRepository.deleteAll();
@@ -61,7 +90,7 @@ public class UserServiceImplTest {
         updateRequest.setName("Updated Name");
         updateRequest.setEmail("updated@test.com");
 
-        UserDto updatedUser = userService.updateUser(updateRequest, createdUser.getId());
+        UserDto updatedUser = userService.updateUser(updateRequest, createdUser.getId(), null);
 
         assertNotNull(updatedUser);
         assertEquals(createdUser.getId(), updatedUser.getId());
@@ -73,6 +102,23 @@ public class UserServiceImplTest {
         assertEquals("updated@test.com", foundUser.getEmail());
     }
 
+    @Test
+    void updateUserWithVersionTest() {
+        CreateUserRequest createRequest = new CreateUserRequest();
+        createRequest.setName("Versioned");
+        createRequest.setEmail("versioned@test.com");
+        UserDto createdUser = userService.createUser(createRequest);
+        String originalTag = userService.getUserETag(createdUser.getId());
+
+        UpdateUserRequest updateRequest = new UpdateUserRequest();
+        updateRequest.setName("Versioned Again");
+        userService.updateUser(updateRequest, createdUser.getId(), EntityTags.parseVersion(originalTag));
+
+        assertNotEquals(originalTag, userService.getUserETag(createdUser.getId()));
+        assertThrows(PreconditionFailedException.class, () -> userService.updateUser(updateRequest,
+                createdUser.getId(), EntityTags.parseVersion(originalTag)));
+    }
+
     @Test
     void getAllUsersTest() {
         CreateUserRequest request1 = new CreateUserRequest();
@@ -93,6 +139,128 @@ public class UserServiceImplTest {
         assertTrue(users.stream().anyMatch(u -> u.getName().equals("User 2")));
     }
 
+    @Test
+    void getUsersByIdsTest() {
+        CreateUserRequest request1 = new CreateUserRequest();
+        request1.setName("User 1");
+        request1.setEmail("user1@test.com");
+
+        CreateUserRequest request2 = new CreateUserRequest();
+        request2.setName("User 2");
+        request2.setEmail("user2@test.com");
+
+        UserDto user1 = userService.createUser(request1);
+        UserDto user2 = userService.createUser(request2);
+
+        List<UserDto> users = userService.getUsersByIds(Set.of(user2.getId(), user1.getId()));
+
+        assertEquals(List.of("User 1", "User 2"), users.stream().map(UserDto::getName).toList());
+        assertThrows(NotFoundException.class, () -> userService.getUsersByIds(Set.of(user1.getId(), 9999L)));
+        assertThrows(ValidationException.class, () -> userService.getUsersByIds(Set.of()));
+    }
+
+    @Test
+    void checkUserIdTest() {
+        CreateUserRequest request = new CreateUserRequest();
+        request.setName("Principal");
+        request.setEmail("principal@test.com");
+        UserDto createdUser = userService.createUser(request);
+
+        assertDoesNotThrow(() -> userService.checkUserId(createdUser.getId()));
+        assertDoesNotThrow(() -> userService.checkUserId(createdUser.getId()));
+        assertThrows(ValidationException.class, () -> userService.checkUserId(null));
+        assertThrows(NotFoundException.class, () -> userService.checkUserId(-1L));
+
+        userService.deleteUser(createdUser.getId());
+        assertThrows(NotFoundException.class, () -> userService.checkUserId(createdUser.getId()));
+    }
+
+    @Test
+    void deletedOnAnotherNodeTest() {
+        CreateUserRequest request = new CreateUserRequest();
+        request.setName("Removed Elsewhere");
+        request.setEmail("elsewhere@test.com");
+        UserDto createdUser = userService.createUser(request);
+        userService.checkUserId(createdUser.getId());
+
+        // another node deletes the user; this node's existence cache still holds the id
+        jdbcTemplate.update("delete from users where id = ?", createdUser.getId());
+        assertDoesNotThrow(() -> userService.checkUserId(createdUser.getId()));
+
+        CreateItemRequest itemRequest = new CreateItemRequest();
+        itemRequest.setName("Orphan");
+        itemRequest.setDescription("Owner is gone");
+        itemRequest.setAvailable(true);
+        assertThrows(NotFoundException.class, () -> itemService.createItem(itemRequest, createdUser.getId()));
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void secondLevelCacheTest() {
+        CreateUserRequest request = new CreateUserRequest();
+        request.setName("Cached");
+        request.setEmail("cached@test.com");
+        UserDto createdUser = userService.createUser(request);
+        CreateUserRequest otherRequest = new CreateUserRequest();
+        otherRequest.setName("Other");
+        otherRequest.setEmail("other@test.com");
+        UserDto otherUser = userService.createUser(otherRequest);
+
+        try {
+            CreateItemRequest itemRequest = new CreateItemRequest();
+            itemRequest.setName("Cached Item");
+            itemRequest.setDescription("Item of a cached user");
+            itemRequest.setAvailable(true);
+            Long itemId = itemService.createItem(itemRequest, createdUser.getId()).getId();
+            Long otherItemId = itemService.createItem(itemRequest, otherUser.getId()).getId();
+
+            Cache cache = entityManagerFactory.getCache();
+            cache.evict(User.class, createdUser.getId());
+            double hits = usersRegionCount("cache.gets", "hit");
+            double misses = usersRegionCount("cache.gets", "miss");
+            double puts = usersRegionCount("cache.puts", null);
+            userService.getUserById(createdUser.getId());
+            userService.getUserById(createdUser.getId());
+            // the read-write strategy also looks the entry up before putting the loaded user
+            assertTrue(usersRegionCount("cache.gets", "miss") > misses);
+            assertEquals(puts + 1, usersRegionCount("cache.puts", null));
+            assertEquals(hits + 1, usersRegionCount("cache.gets", "hit"));
+
+            itemService.getItemById(itemId);
+            itemService.getItemDtoById(itemId, otherUser.getId());
+            itemService.getItemById(otherItemId);
+            assertTrue(cache.contains(User.class, createdUser.getId()));
+            assertTrue(cache.contains(Item.class, itemId));
+            assertTrue(cache.contains(Item.class, otherItemId));
+
+            userService.deleteUser(createdUser.getId());
+
+            assertFalse(cache.contains(Item.class, itemId));
+            assertTrue(cache.contains(Item.class, otherItemId));
+            assertThrows(NotFoundException.class, () -> itemService.getItemDtoById(itemId, otherUser.getId()));
+            assertThrows(NotFoundException.class, () -> userService.getUserById(createdUser.getId()));
+            assertThrows(NotFoundException.class, () -> itemService.getItemById(itemId));
+        } finally {
+            // committed outside a test transaction, so nothing rolls it back
+            Stream.of(createdUser.getId(), otherUser.getId())
+                    .filter(userRepository::existsById)
+                    .forEach(userService::deleteUser);
+        }
+    }
+
+    /**
+     * Count of the JCache meter of the {@code users} region, optionally narrowed to a {@code result} tag.
+     */
+    private double usersRegionCount(String meter, String result) {
+        Search search = meterRegistry.find(meter).tag("cache", HibernateCacheConfig.USERS_REGION);
+        if (result != null) {
+            search = search.tag("result", result);
+        }
+        return search.functionCounters().stream()
+                .mapToDouble(FunctionCounter::count)
+                .sum();
+    }
+
     @Test
     void deleteUserTest() {
         CreateUserRequest request = new CreateUserRequest();